@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+File buildLog = new File( basedir, 'build.log' )
+assert buildLog.exists()
+assert buildLog.text.contains( "Analyzing 1 of 2 files in shard 1/2" )
+assert buildLog.text.contains( "Analyzing 1 of 2 files in shard 2/2" )
+assert buildLog.text.contains( "Merging the reports of 2 shards" )
+assert buildLog.text.contains( "Using the merged report of the shards - skipping the execution of PMD." )
+assert buildLog.text.contains( "PMD Failure: shard.alpha.Alpha:24 Rule:UnusedPrivateField" )
+assert buildLog.text.contains( "PMD Failure: shard.gamma.Gamma:24 Rule:UnusedPrivateField" )
+
+File firstShard = new File( basedir, 'target/pmd-shards/shard-1-of-2/pmd.xml' )
+File secondShard = new File( basedir, 'target/pmd-shards/shard-2-of-2/pmd.xml' )
+assert firstShard.exists()
+assert secondShard.exists()
+assert firstShard.text.contains( 'Alpha.java' )
+assert !firstShard.text.contains( 'Gamma.java' )
+assert secondShard.text.contains( 'Gamma.java' )
+assert !secondShard.text.contains( 'Alpha.java' )
+
+File pmdXml = new File( basedir, 'target/pmd.xml' )
+assert pmdXml.exists()
+assert pmdXml.text.contains( 'Alpha.java' )
+assert pmdXml.text.contains( 'Gamma.java' )
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+File buildLog = new File( basedir, 'build.log' )
+assert buildLog.exists()
+assert buildLog.text.contains( "PMD Failure: shards.alpha.Alpha:24 Rule:UnusedPrivateField" )
+assert buildLog.text.contains( "PMD Failure: shards.gamma.Gamma:24 Rule:UnusedPrivateField" )
+
+// each forked JVM has analyzed one package
+File firstShard = new File( basedir, 'target/pmd/shard-0/pmd.xml' )
+File secondShard = new File( basedir, 'target/pmd/shard-1/pmd.xml' )
+assert firstShard.exists()
+assert secondShard.exists()
+assert firstShard.text.contains( 'Alpha.java' ) != secondShard.text.contains( 'Alpha.java' )
+assert firstShard.text.contains( 'Gamma.java' ) != secondShard.text.contains( 'Gamma.java' )
+
+File pmdXml = new File( basedir, 'target/pmd.xml' )
+assert pmdXml.exists()
+assert pmdXml.text.contains( 'Alpha.java' )
+assert pmdXml.text.contains( 'Gamma.java' )
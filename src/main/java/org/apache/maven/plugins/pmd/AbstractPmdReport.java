@@ -20,23 +20,34 @@ package org.apache.maven.plugins.pmd;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.sourceforge.pmd.PMDVersion;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.pmd.exec.BenchmarkReport;
+import org.apache.maven.plugins.pmd.exec.ExecutionListener;
+import org.apache.maven.plugins.pmd.exec.ExecutionListeners;
+import org.apache.maven.plugins.pmd.exec.PhaseEvent;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
@@ -138,6 +149,109 @@ public abstract class AbstractPmdReport extends AbstractMavenReport {
     @Parameter
     private File[] excludeRoots;
 
+    /**
+     * Skip source files, that are larger than this number of bytes. Skipped files are listed in the PMD report.
+     * A value of <code>0</code> disables this limit.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.maxFileSize", defaultValue = "0")
+    private long maxFileSize;
+
+    /**
+     * Skip source files, that have more than this number of lines. Skipped files are listed in the PMD report.
+     * A value of <code>0</code> disables this limit.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.maxFileLines", defaultValue = "0")
+    private int maxFileLines;
+
+    /**
+     * Skip source files, which are marked as generated in their header, e.g. by a <code>@Generated</code>
+     * annotation of the first type or a "DO NOT EDIT" header comment. Only the first 16 KiB of a file are searched.
+     * Skipped files are listed in the PMD report.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.skipGeneratedFiles", defaultValue = "false")
+    private boolean skipGeneratedFiles;
+
+    /**
+     * Analyze only one shard of the source files, in the form <code>i/N</code>, e.g. <code>2/4</code>.
+     * This spreads the analysis of a module across <code>N</code> build nodes, each running one shard.
+     * The files are assigned to the shards by their package, so every node selects the same files.
+     * The XML report of the shard is copied to <code>shardsDirectory/shard-i-of-N</code>.
+     * When the shard directories of all nodes have been collected, the goal <code>pmd:merge</code> combines
+     * them into the final report, which the check goals then use.
+     * CPD is not sharded, as duplications might span several shards: it analyzes all files in shard 1
+     * and is skipped in the other shards.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.shard")
+    private String shard;
+
+    /**
+     * The directory, where the XML reports of the shards are collected, see <code>shard</code>.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.shardsDirectory", defaultValue = "${project.build.directory}/pmd-shards")
+    protected File shardsDirectory;
+
+    /**
+     * Write metrics of the execution in the OpenMetrics text format, e.g. for the textfile collector
+     * of the Prometheus node exporter: the wall time of the phases, the number of analyzed files,
+     * the violations by priority or the duplications, the lookups and hits of the file discovery cache,
+     * the peak heap usage and the number of threads. The metrics are written to
+     * <code>pmd-metrics.prom</code> or <code>cpd-metrics.prom</code> in the build directory,
+     * and rolled up for the whole reactor into <code>pmd-metrics-reactor.prom</code> or
+     * <code>cpd-metrics-reactor.prom</code> in the build directory of the execution root.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.metrics", defaultValue = "false")
+    protected boolean metrics;
+
+    /**
+     * The time budget for the analysis in seconds. If the analysis takes longer, the build warns
+     * or fails, see <code>failOnTimeBudget</code>, and lists the slowest rules and files.
+     * <code>0</code> means no budget.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.maxAnalysisTime", defaultValue = "0")
+    protected int maxAnalysisTime;
+
+    /**
+     * Fail the build if a time budget (<code>maxAnalysisTime</code> or <code>maxTimePerFile</code>)
+     * is exceeded. Otherwise only a warning is logged.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.failOnTimeBudget", defaultValue = "false")
+    private boolean failOnTimeBudget;
+
+    /**
+     * The interval in seconds, in which the progress of the analysis is logged: the files done,
+     * the throughput, the estimated remaining time and the heap in use. <code>0</code> disables the
+     * progress lines.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.progressInterval", defaultValue = "30")
+    protected int progressInterval;
+
+    /**
+     * A file, where every completed file of the analysis is written as a JSON object, one per line
+     * (NDJSON), e.g. for dashboards. By default, no events are written.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.progressEventsFile")
+    private File progressEventsFile;
+
     /**
      * Run PMD on the tests as well.
      *
@@ -261,6 +375,24 @@ public abstract class AbstractPmdReport extends AbstractMavenReport {
     /** The files that are being analyzed. */
     protected Map<File, PmdFileInfo> filesToProcess;
 
+    /** The files that have been skipped by the last call of {@link #getFilesToProcess()}. */
+    protected List<SkippedFile> skippedFiles = Collections.emptyList();
+
+    /** The wall time of the phases in nanoseconds, recorded if metrics are enabled. */
+    private final Map<String, Long> phaseDurations = new ConcurrentHashMap<>();
+
+    /** The number of lookups in the file set cache, only the first lookup of a file set counts. */
+    private final AtomicInteger fileSetCacheLookupCount = new AtomicInteger();
+
+    /** The number of lookups in the file set cache, which have found the files. */
+    private final AtomicInteger fileSetCacheHitCount = new AtomicInteger();
+
+    /** The keys this mojo has looked up in the file set cache. */
+    private final Set<String> fileSetCacheLookups = ConcurrentHashMap.newKeySet();
+
+    /** Guards the roll-ups of the reports of the modules, which might be built in parallel. */
+    private static final Object REACTOR_ROLL_UP_LOCK = new Object();
+
     @Override
     protected MavenProject getProject() {
         return project;
@@ -282,6 +414,19 @@ public abstract class AbstractPmdReport extends AbstractMavenReport {
      *                     canonical paths of the files
      */
     protected Map<File, PmdFileInfo> getFilesToProcess() throws IOException {
+        Map<File, PmdFileInfo> files;
+        try (PhaseEvent event = beginPhase(PhaseEvent.FILE_DISCOVERY)) {
+            files = discoverFilesToProcess();
+        }
+        if (ExecutionListeners.isEnabled()) {
+            for (File file : files.keySet()) {
+                ExecutionListeners.fileDiscovered(file);
+            }
+        }
+        return files;
+    }
+
+    private Map<File, PmdFileInfo> discoverFilesToProcess() throws IOException {
         if (aggregate && !project.isExecutionRoot()) {
             return Collections.emptyMap();
         }
@@ -290,11 +435,18 @@ public abstract class AbstractPmdReport extends AbstractMavenReport {
             excludeRoots = new File[0];
         }
 
+        CanonicalPathCache canonicalPathCache = CanonicalPathCache.getInstance(getPluginContext());
         Collection<File> excludeRootFiles = new HashSet<>(excludeRoots.length);
+        Collection<Path> canonicalExcludeRoots = new ArrayList<>(excludeRoots.length);
 
         for (File file : excludeRoots) {
             if (file.isDirectory()) {
                 excludeRootFiles.add(file);
+                try {
+                    canonicalExcludeRoots.add(canonicalPathCache.getCanonicalDirectory(file).toPath());
+                } catch (IOException e) {
+                    getLog().warn("Error while determining the canonical path of excludeRoot " + file, e);
+                }
             }
         }
 
@@ -348,53 +500,320 @@ public abstract class AbstractPmdReport extends AbstractMavenReport {
             }
         }
 
-        String excluding = getExcludes();
-        getLog().debug("Exclusions: " + excluding);
-        String including = getIncludes();
-        getLog().debug("Inclusions: " + including);
-
-        Map<File, PmdFileInfo> files = new TreeMap<>();
+        Collection<String> excluding = getExcludes();
+        getLog().debug("Exclusions: " + String.join(",", excluding));
+        Collection<String> including = getIncludes();
+        getLog().debug("Inclusions: " + String.join(",", including));
 
+        List<PmdFileInfo> scannedDirectories = new ArrayList<>(directories.size());
+        List<File> sourceDirectories = new ArrayList<>(directories.size());
         for (PmdFileInfo finfo : directories) {
             getLog().debug("Searching for files in directory "
                     + finfo.getSourceDirectory().toString());
             File sourceDirectory = finfo.getSourceDirectory();
-            if (sourceDirectory.isDirectory() && !isDirectoryExcluded(excludeRootFiles, sourceDirectory)) {
-                List<File> newfiles = FileUtils.getFiles(sourceDirectory, including, excluding);
-                for (File newfile : newfiles) {
-                    files.put(newfile.getCanonicalFile(), finfo);
+            if (sourceDirectory.isDirectory() && !isDirectoryExcluded(canonicalExcludeRoots, sourceDirectory)) {
+                scannedDirectories.add(finfo);
+                sourceDirectories.add(sourceDirectory);
+            }
+        }
+
+        SourceFileFilter fileFilter = new SourceFileFilter(maxFileSize, maxFileLines, skipGeneratedFiles);
+        FileSetCache fileSetCache = FileSetCache.getInstance(getPluginContext());
+        String cacheKey = getFileSetCacheKey(scannedDirectories, including, excluding, excludeRootFiles, fileFilter);
+        if (fileSetCache != null) {
+            FileSetCache.Entry cached = fileSetCache.get(cacheKey);
+            // only the reuse across goals counts, e.g. the pmd goal looks up its own files a second time
+            if (fileSetCacheLookups.add(cacheKey)) {
+                ExecutionListeners.cacheAccessed(ExecutionListener.FILE_SET_CACHE, cacheKey, cached != null);
+                fileSetCacheLookupCount.incrementAndGet();
+                if (cached != null) {
+                    fileSetCacheHitCount.incrementAndGet();
                 }
             }
+            if (cached != null) {
+                getLog().debug("Reusing " + cached.getFiles().size() + " files found by a previous scan");
+                skippedFiles = cached.getSkippedFiles();
+                return cached.getFiles();
+            }
+        }
+
+        long scanStart = System.currentTimeMillis();
+        SourceFileScanner scanner = new SourceFileScanner(including, excluding, canonicalPathCache);
+        scanner.setFileFilter(fileFilter);
+        List<List<File>> scanned = scanner.scan(sourceDirectories);
+
+        Map<File, PmdFileInfo> files = new TreeMap<>();
+        Map<File, SkippedFile> skipped = new TreeMap<>();
+        for (int i = 0; i < scannedDirectories.size(); i++) {
+            PmdFileInfo finfo = scannedDirectories.get(i);
+            for (File newfile : scanned.get(i)) {
+                files.put(newfile, finfo);
+            }
+            for (Map.Entry<File, String> entry : scanner.getSkippedFiles().get(i).entrySet()) {
+                getLog().debug("Skipping " + entry.getKey() + " (" + entry.getValue() + ")");
+                skipped.put(entry.getKey(), new SkippedFile(entry.getKey(), finfo, entry.getValue()));
+            }
+        }
+        files = Collections.unmodifiableMap(files);
+        skippedFiles = Collections.unmodifiableList(new ArrayList<>(skipped.values()));
+        if (!skippedFiles.isEmpty()) {
+            getLog().info("Skipped " + skippedFiles.size() + " generated or oversized source files");
         }
 
+        if (fileSetCache != null) {
+            Map<Path, FileTime> timestamps = new HashMap<>(scanner.getDirectoryTimestamps());
+            timestamps.putAll(scanner.getFileTimestamps());
+            fileSetCache.put(cacheKey, files, skippedFiles, timestamps, scanStart);
+        }
         return files;
     }
 
-    private boolean isDirectoryExcluded(Collection<File> excludedRootFiles, File sourceDirectoryToCheck) {
-        for (File excludedDirectory : excludedRootFiles) {
-            try {
-                if (sourceDirectoryToCheck
-                        .getCanonicalFile()
+    /**
+     * Begins a JFR event for a phase of this report, tagged with the module and the goal.
+     * If metrics are enabled, the wall time of the phase is recorded as well.
+     *
+     * @param phase the phase, one of the constants of {@link PhaseEvent}
+     * @return the event, to be closed at the end of the phase
+     */
+    protected PhaseEvent beginPhase(String phase) {
+        return PhaseEvent.begin(phase, project.getArtifactId(), getGoal(), metrics ? phaseDurations : null);
+    }
+
+    /**
+     * Creates the metrics common to PMD and CPD: the wall time of the phases, the skipped files,
+     * the lookups and hits of the file discovery cache, the peak heap usage and the peak number of threads.
+     *
+     * @return the metrics, to be completed by the report
+     */
+    AnalysisMetrics createMetrics() {
+        AnalysisMetrics result = new AnalysisMetrics();
+        String module = project.getArtifactId();
+        String goal = getGoal();
+        for (Map.Entry<String, Long> phase : new TreeMap<>(phaseDurations).entrySet()) {
+            result.add(
+                    AnalysisMetrics.Metric.PHASE_DURATION,
+                    AnalysisMetrics.labels(AnalysisMetrics.MODULE, module, "goal", goal, "phase", phase.getKey()),
+                    phase.getValue() / 1e9);
+        }
+        Map<String, String> labels = AnalysisMetrics.labels(AnalysisMetrics.MODULE, module, "goal", goal);
+        result.add(AnalysisMetrics.Metric.FILES_SKIPPED, labels, skippedFiles.size());
+        result.add(AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_LOOKUPS, labels, fileSetCacheLookupCount.get());
+        result.add(AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_HITS, labels, fileSetCacheHitCount.get());
+        long heapPeak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                heapPeak += pool.getPeakUsage().getUsed();
+            }
+        }
+        result.add(AnalysisMetrics.Metric.HEAP_PEAK, labels, heapPeak);
+        result.add(
+                AnalysisMetrics.Metric.JVM_THREADS_PEAK,
+                labels,
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        return result;
+    }
+
+    /**
+     * Records the wall time of a phase, which is not covered by {@link #beginPhase(String)}.
+     *
+     * @param phase the phase
+     * @param startNanos the start of the phase, from {@link System#nanoTime()}
+     */
+    protected void recordPhaseDuration(String phase, long startNanos) {
+        if (metrics) {
+            phaseDurations.merge(phase, System.nanoTime() - startNanos, Long::sum);
+        }
+    }
+
+    /**
+     * @return the path of the NDJSON file for the progress events or <code>null</code>
+     */
+    protected String getProgressEventsFile() {
+        return progressEventsFile != null ? progressEventsFile.getAbsolutePath() : null;
+    }
+
+    /**
+     * Checks the time budget of the analysis and warns or fails, if it is exceeded.
+     *
+     * @param budget the budget
+     * @param analyzer the name of the analyzer, e.g. <code>PMD</code>
+     * @param analysisNanos the wall time of the analysis in nanoseconds
+     * @param timings the timing data of the analysis, <code>null</code> if there is none
+     * @throws MavenReportException if the budget is exceeded and <code>failOnTimeBudget</code> is set
+     */
+    void checkTimeBudget(TimeBudget budget, String analyzer, long analysisNanos, BenchmarkReport timings)
+            throws MavenReportException {
+        String message = budget.check(analyzer, analysisNanos, timings);
+        if (message == null) {
+            return;
+        }
+        if (failOnTimeBudget) {
+            throw new MavenReportException(message);
+        }
+        getLog().warn(message);
+    }
+
+    /**
+     * Writes the metrics of this module to the build directory and rolls up the metrics of all modules,
+     * which have been written during this build, into the build directory of the execution root.
+     *
+     * @param metrics the metrics of this module
+     * @param reportName the name of the report, <code>pmd</code> or <code>cpd</code>
+     */
+    void writeMetrics(AnalysisMetrics metrics, String reportName) {
+        File metricsFile = new File(targetDirectory, reportName + "-metrics.prom");
+        try {
+            metrics.write(metricsFile);
+        } catch (IOException e) {
+            getLog().warn("Unable to write the metrics: " + e.getMessage(), e);
+            return;
+        }
+        rollUpReactorReports(metricsFile, "metrics", (moduleFiles, directory) -> {
+            List<AnalysisMetrics> modules = new ArrayList<>();
+            for (File moduleFile : moduleFiles.values()) {
+                modules.add(AnalysisMetrics.read(moduleFile));
+            }
+            AnalysisMetrics.rollUp(modules).write(new File(directory, reportName + "-metrics-reactor.prom"));
+        });
+    }
+
+    /**
+     * Rolls up a report, which every module writes to the same location relative to its base directory,
+     * into the build directory of the execution root. Only the reports written during this build are
+     * included. Every module rewrites the roll-up, so it is complete after the last module.
+     *
+     * @param moduleReport the report of this module
+     * @param description what is rolled up, for the log
+     * @param rollUp writes the roll-up of the reports of the modules
+     */
+    void rollUpReactorReports(File moduleReport, String description, ReactorRollUp rollUp) {
+        if (reactorProjects == null || reactorProjects.size() < 2) {
+            return;
+        }
+        Path relativeReport = project.getBasedir().toPath().relativize(moduleReport.getAbsoluteFile().toPath());
+        long buildStart = session.getRequest().getStartTime().getTime();
+        // modules built in parallel must not overwrite each other's roll-up
+        synchronized (REACTOR_ROLL_UP_LOCK) {
+            MavenProject executionRoot = project;
+            Map<MavenProject, File> moduleReports = new LinkedHashMap<>();
+            for (MavenProject reactorProject : reactorProjects) {
+                if (reactorProject.isExecutionRoot()) {
+                    executionRoot = reactorProject;
+                }
+                File file = reactorProject
+                        .getBasedir()
                         .toPath()
-                        .startsWith(excludedDirectory.getCanonicalFile().toPath())) {
-                    getLog().debug("Directory " + sourceDirectoryToCheck.getAbsolutePath()
-                            + " has been excluded as it matches excludeRoot "
-                            + excludedDirectory.getAbsolutePath());
-                    return true;
+                        .resolve(relativeReport)
+                        .toFile();
+                if (file.isFile() && file.lastModified() >= buildStart) {
+                    moduleReports.put(reactorProject, file);
                 }
+            }
+            try {
+                rollUp.write(moduleReports, new File(executionRoot.getBuild().getDirectory()));
             } catch (IOException e) {
-                getLog().warn("Error while checking whether " + sourceDirectoryToCheck + " should be excluded.", e);
+                getLog().warn("Unable to roll up the " + description + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the roll-up of the reports of the modules.
+     *
+     * @see #rollUpReactorReports(File, String, ReactorRollUp)
+     */
+    interface ReactorRollUp {
+        /**
+         * @param moduleReports the modules with their report, which has been written during this build
+         * @param directory the build directory of the execution root
+         * @throws IOException if a report can't be read or the roll-up can't be written
+         */
+        void write(Map<MavenProject, File> moduleReports, File directory) throws IOException;
+    }
+
+    /**
+     * @return the goal of this execution, empty if unknown
+     */
+    protected String getGoal() {
+        return mojoExecution != null ? mojoExecution.getGoal() : "";
+    }
+
+    /**
+     * @return the shard to analyze or <code>null</code>, if all files should be analyzed
+     * @throws MavenReportException if the shard is malformed
+     */
+    Shard getShard() throws MavenReportException {
+        if (shard == null || shard.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Shard.parse(shard);
+        } catch (IllegalArgumentException e) {
+            throw new MavenReportException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies a report of the current shard to its directory below {@link #shardsDirectory}.
+     *
+     * @param currentShard the shard
+     * @param report the report
+     * @throws MavenReportException if the report can't be copied
+     */
+    void collectShardReport(Shard currentShard, File report) throws MavenReportException {
+        File shardDirectory = new File(shardsDirectory, currentShard.getDirectoryName());
+        try {
+            FileUtils.copyFile(report, new File(shardDirectory, report.getName()));
+        } catch (IOException e) {
+            throw new MavenReportException("Unable to copy " + report + " to " + shardDirectory, e);
+        }
+        getLog().info("Report of shard " + currentShard + " copied to " + shardDirectory);
+    }
+
+    /**
+     * Describes everything that determines the result of {@link #getFilesToProcess()}.
+     */
+    private static String getFileSetCacheKey(
+            List<PmdFileInfo> directories,
+            Collection<String> including,
+            Collection<String> excluding,
+            Collection<File> excludeRootFiles,
+            SourceFileFilter fileFilter) {
+        StringBuilder key = new StringBuilder(256);
+        for (PmdFileInfo finfo : directories) {
+            key.append(finfo.getProject().getId())
+                    .append('|')
+                    .append(finfo.getSourceDirectory())
+                    .append('|')
+                    .append(finfo.getXrefLocation())
+                    .append('\n');
+        }
+        key.append("includes=").append(String.join(",", including)).append('\n');
+        key.append("excludes=").append(String.join(",", excluding)).append('\n');
+        key.append("excludeRoots=").append(excludeRootFiles).append('\n');
+        key.append("filter=").append(fileFilter).append('\n');
+        return key.toString();
+    }
+
+    private boolean isDirectoryExcluded(Collection<Path> canonicalExcludeRoots, File sourceDirectoryToCheck) {
+        // source directories are already canonical, see PmdFileInfo
+        Path sourceDirectory = sourceDirectoryToCheck.toPath();
+        for (Path excludedDirectory : canonicalExcludeRoots) {
+            if (sourceDirectory.startsWith(excludedDirectory)) {
+                getLog().debug("Directory " + sourceDirectoryToCheck.getAbsolutePath()
+                        + " has been excluded as it matches excludeRoot " + excludedDirectory);
+                return true;
             }
         }
         return false;
     }
 
     /**
-     * Gets the comma separated list of effective include patterns.
+     * Gets the effective include patterns.
      *
-     * @return the comma separated list of effective include patterns, never <code>null</code>
+     * @return the effective include patterns, never <code>null</code>
      */
-    private String getIncludes() {
+    private Collection<String> getIncludes() {
         Collection<String> patterns = new LinkedHashSet<>();
         if (includes != null) {
             patterns.addAll(includes);
@@ -402,20 +821,20 @@ public abstract class AbstractPmdReport extends AbstractMavenReport {
         if (patterns.isEmpty()) {
             patterns.add("**/*.java");
         }
-        return String.join(",", patterns);
+        return patterns;
     }
 
     /**
-     * Gets the comma separated list of effective exclude patterns.
+     * Gets the effective exclude patterns.
      *
-     * @return the comma separated list of effective exclude patterns, never <code>null</code>
+     * @return the effective exclude patterns, never <code>null</code>
      */
-    private String getExcludes() {
+    private Collection<String> getExcludes() {
         Collection<String> patterns = new LinkedHashSet<>(FileUtils.getDefaultExcludesAsList());
         if (excludes != null) {
             patterns.addAll(excludes);
         }
-        return String.join(",", patterns);
+        return patterns;
     }
 
     protected boolean isXml() {
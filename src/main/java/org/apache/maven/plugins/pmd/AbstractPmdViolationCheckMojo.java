@@ -18,15 +18,26 @@
  */
 package org.apache.maven.plugins.pmd;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractList;
 import java.util.List;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.pmd.exec.ExecutionListeners;
+import org.apache.maven.plugins.pmd.exec.PmdExecutor;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
@@ -147,8 +158,13 @@ public abstract class AbstractPmdViolationCheckMojo<D> extends AbstractMojo {
 
                 final int failureCount = failures.size();
                 final int warningCount = warnings.size();
+                ExecutionListeners.checkCompleted(outputFile, failureCount, warningCount);
 
-                final String message = getMessage(failureCount, warningCount, analyzerName, failureName, outputFile);
+                String message = getMessage(failureCount, warningCount, analyzerName, failureName, outputFile);
+                if (isTruncated(outputFile)) {
+                    message += " The results are partial, the analysis has been stopped after exceeding"
+                            + " maxAllowedViolations (failFast).";
+                }
 
                 if (failureCount > getMaxAllowedViolations() && isFailOnViolation()) {
                     throw new MojoFailureException(message);
@@ -172,6 +188,44 @@ public abstract class AbstractPmdViolationCheckMojo<D> extends AbstractMojo {
         }
     }
 
+    /**
+     * Checks whether the report ends with the marker of an analysis stopped by <code>failFast</code>.
+     * The marker is written in the encoding of the report.
+     */
+    static boolean isTruncated(final File analysisFile) throws IOException {
+        final String marker = PmdExecutor.TRUNCATED_MARKER;
+        final Charset encoding = getEncoding(analysisFile);
+        final int bytesPerChar = (int) Math.ceil(encoding.newEncoder().maxBytesPerChar());
+        try (RandomAccessFile file = new RandomAccessFile(analysisFile, "r")) {
+            // the marker follows the root element, only line breaks might come after it
+            final int length = (int) Math.min(file.length(), (long) (marker.length() + 16) * bytesPerChar);
+            final byte[] tail = new byte[length];
+            file.seek(file.length() - length);
+            file.readFully(tail);
+            return new String(tail, encoding).contains(marker);
+        }
+    }
+
+    /**
+     * @return the encoding of the XML file, as detected by the XML parser from the byte order mark
+     *     and the XML declaration
+     */
+    private static Charset getEncoding(final File analysisFile) throws IOException {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        try (InputStream in = Files.newInputStream(analysisFile.toPath())) {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                final String encoding = reader.getEncoding();
+                return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | IllegalArgumentException e) {
+            throw new IOException("Unable to detect the encoding of " + analysisFile, e);
+        }
+    }
+
     /**
      * Method for collecting the violations found by the PMD tool.
      *
@@ -179,29 +233,49 @@ public abstract class AbstractPmdViolationCheckMojo<D> extends AbstractMojo {
      */
     private ViolationDetails<D> getViolations(final File analysisFile, final int failurePriority)
             throws XmlPullParserException, IOException {
-        final List<D> failures = new ArrayList<>();
-        final List<D> warnings = new ArrayList<>();
-
         final List<D> violations = getErrorDetails(analysisFile);
 
-        for (final D violation : violations) {
+        // the failures and warnings are kept as indexes, the violations might be created on access
+        final int[] failures = new int[violations.size()];
+        final int[] warnings = new int[violations.size()];
+        int failureCount = 0;
+        int warningCount = 0;
+        for (int i = 0; i < violations.size(); i++) {
+            final D violation = violations.get(i);
             final int priority = getPriority(violation);
             if (priority <= failurePriority && !excludeFromFile.isExcludedFromFailure(violation)) {
-                failures.add(violation);
+                failures[failureCount++] = i;
                 if (printFailingErrors) {
                     printError(violation, "Failure");
                 }
             } else {
-                warnings.add(violation);
+                warnings[warningCount++] = i;
             }
         }
 
         final ViolationDetails<D> details = newViolationDetailsInstance();
-        details.setFailureDetails(failures);
-        details.setWarningDetails(warnings);
+        details.setFailureDetails(select(violations, failures, failureCount));
+        details.setWarningDetails(select(violations, warnings, warningCount));
         return details;
     }
 
+    private static <D> List<D> select(final List<D> violations, final int[] indexes, final int count) {
+        return new AbstractList<D>() {
+            @Override
+            public D get(int index) {
+                if (index >= count) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+                }
+                return violations.get(indexes[index]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
     protected abstract int getPriority(D errorDetail);
 
     protected abstract ViolationDetails<D> newViolationDetailsInstance();
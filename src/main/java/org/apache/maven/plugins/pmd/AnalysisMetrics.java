@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Metrics of a PMD or CPD execution in the OpenMetrics text format, e.g. for the textfile collector
+ * of the Prometheus node exporter. The metrics are gauges or counters labeled with the module and the goal.
+ * The metrics of several modules can be rolled up into one file for the whole reactor.
+ * The files are replaced atomically, so that a collector never reads a partially written file.
+ */
+class AnalysisMetrics {
+    /**
+     * The known metrics and how they are rolled up.
+     */
+    enum Metric {
+        PHASE_DURATION("pmd_phase_duration_seconds", "seconds", "Wall time of a phase of the plugin", RollUp.SUM),
+        FILES_ANALYZED("pmd_files_analyzed", null, "Number of analyzed files", RollUp.SUM),
+        FILES_SKIPPED("pmd_files_skipped", null, "Number of skipped generated or oversized files", RollUp.SUM),
+        FILE_DISCOVERY_CACHE_LOOKUPS(
+                "pmd_file_discovery_cache_lookups",
+                null,
+                "Number of file discoveries looked up in the cache of a previous execution",
+                RollUp.COUNTER),
+        FILE_DISCOVERY_CACHE_HITS(
+                "pmd_file_discovery_cache_hits",
+                null,
+                "Number of file discoveries answered by the cache of a previous execution",
+                RollUp.COUNTER),
+        VIOLATIONS("pmd_violations", null, "Number of violations by priority", RollUp.SUM),
+        DUPLICATIONS("pmd_duplications", null, "Number of duplications found by CPD", RollUp.SUM),
+        HEAP_PEAK("pmd_jvm_heap_peak_bytes", "bytes", "Peak heap usage of the Maven JVM", RollUp.MAX),
+        ANALYSIS_THREADS("pmd_analysis_threads", null, "Number of threads used for the analysis", RollUp.MAX),
+        JVM_THREADS_PEAK("pmd_jvm_threads_peak", null, "Peak number of live threads of the Maven JVM", RollUp.MAX);
+
+        private final String name;
+
+        private final String unit;
+
+        private final String help;
+
+        private final RollUp rollUp;
+
+        Metric(String name, String unit, String help, RollUp rollUp) {
+            this.name = name;
+            this.unit = unit;
+            this.help = help;
+            this.rollUp = rollUp;
+        }
+
+        /**
+         * @return the name of the samples, counters have the suffix <code>_total</code>
+         */
+        String getSampleName() {
+            return rollUp == RollUp.COUNTER ? name + "_total" : name;
+        }
+
+        static Metric forSampleName(String sampleName) {
+            for (Metric metric : values()) {
+                if (metric.getSampleName().equals(sampleName)) {
+                    return metric;
+                }
+            }
+            return null;
+        }
+    }
+
+    private enum RollUp {
+        SUM,
+        MAX,
+        /** A counter, which is summed up. */
+        COUNTER
+    }
+
+    static final String MODULE = "module";
+
+    private static final Pattern SAMPLE = Pattern.compile("([a-z_]+)(?:\\{(.*)})? (\\S+)");
+
+    private static final Pattern LABEL = Pattern.compile("([a-z_]+)=\"((?:[^\"\\\\]|\\\\.)*)\",?");
+
+    private final Map<Metric, Map<Map<String, String>, Double>> samples = new TreeMap<>();
+
+    /**
+     * Adds a sample.
+     *
+     * @param metric the metric
+     * @param labels the labels of the sample
+     * @param value the value
+     */
+    void add(Metric metric, Map<String, String> labels, double value) {
+        samples.computeIfAbsent(metric, m -> new LinkedHashMap<>()).put(labels, value);
+    }
+
+    /**
+     * Gets the value of a sample.
+     *
+     * @param metric the metric
+     * @param labels the labels of the sample
+     * @return the value or <code>null</code>
+     */
+    Double get(Metric metric, Map<String, String> labels) {
+        Map<Map<String, String>, Double> values = samples.get(metric);
+        return values != null ? values.get(labels) : null;
+    }
+
+    /**
+     * Creates labels from pairs of names and values.
+     */
+    static Map<String, String> labels(String... namesAndValues) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            labels.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return labels;
+    }
+
+    /**
+     * Rolls up the metrics of several modules. The module label is dropped, the samples with equal
+     * remaining labels are summed up or the maximum is taken, depending on the metric.
+     *
+     * @param modules the metrics of the modules
+     * @return the rolled up metrics
+     */
+    static AnalysisMetrics rollUp(Collection<AnalysisMetrics> modules) {
+        AnalysisMetrics result = new AnalysisMetrics();
+        for (AnalysisMetrics module : modules) {
+            for (Map.Entry<Metric, Map<Map<String, String>, Double>> metric : module.samples.entrySet()) {
+                for (Map.Entry<Map<String, String>, Double> sample : metric.getValue().entrySet()) {
+                    Map<String, String> labels = new LinkedHashMap<>(sample.getKey());
+                    labels.remove(MODULE);
+                    Map<Map<String, String>, Double> values =
+                            result.samples.computeIfAbsent(metric.getKey(), m -> new LinkedHashMap<>());
+                    Double previous = values.get(labels);
+                    double value = sample.getValue();
+                    if (previous != null) {
+                        value = metric.getKey().rollUp == RollUp.MAX
+                                ? Math.max(previous, value)
+                                : previous + value;
+                    }
+                    values.put(labels, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the metrics in the OpenMetrics text format. The metrics are written into a temporary file,
+     * which then replaces the file.
+     *
+     * @param file the target file
+     * @throws IOException if the file can't be written
+     */
+    void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Couldn't create directory: " + parent);
+        }
+        Path temp = Files.createTempFile(parent.toPath(), file.getName(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                write(writer);
+            }
+            try {
+                Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(Writer writer) throws IOException {
+        for (Map.Entry<Metric, Map<Map<String, String>, Double>> metric : samples.entrySet()) {
+            Metric m = metric.getKey();
+            writer.write("# TYPE " + m.name + (m.rollUp == RollUp.COUNTER ? " counter\n" : " gauge\n"));
+            if (m.unit != null) {
+                writer.write("# UNIT " + m.name + " " + m.unit + "\n");
+            }
+            writer.write("# HELP " + m.name + " " + m.help + ".\n");
+            for (Map.Entry<Map<String, String>, Double> sample : metric.getValue().entrySet()) {
+                writer.write(m.getSampleName() + formatLabels(sample.getKey()) + " " + formatValue(sample.getValue())
+                        + "\n");
+            }
+        }
+        writer.write("# EOF\n");
+    }
+
+    private static String formatLabels(Map<String, String> labels) {
+        if (labels.isEmpty()) {
+            return "";
+        }
+        List<String> formatted = new ArrayList<>(labels.size());
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            String value = label.getValue()
+                    .replace("\\", "\\\\")
+                    .replace("\"", "\\\"")
+                    .replace("\n", "\\n");
+            formatted.add(label.getKey() + "=\"" + value + "\"");
+        }
+        return "{" + String.join(",", formatted) + "}";
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return String.valueOf((long) value);
+        }
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    /**
+     * Reads metrics written by {@link #write(File)}. Unknown metrics are ignored.
+     *
+     * @param file the file
+     * @return the metrics
+     * @throws IOException if the file can't be read
+     */
+    static AnalysisMetrics read(File file) throws IOException {
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher sample = SAMPLE.matcher(line);
+                if (line.startsWith("#") || !sample.matches()) {
+                    continue;
+                }
+                Metric metric = Metric.forSampleName(sample.group(1));
+                if (metric == null) {
+                    continue;
+                }
+                Map<String, String> labels = new LinkedHashMap<>();
+                Matcher label = LABEL.matcher(sample.group(2) != null ? sample.group(2) : "");
+                while (label.find()) {
+                    labels.put(label.group(1), unescape(label.group(2)));
+                }
+                try {
+                    metrics.add(metric, labels, Double.parseDouble(sample.group(3)));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid sample in " + file + ": " + line, e);
+                }
+            }
+        }
+        return metrics;
+    }
+
+    private static String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 'n' ? '\n' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the canonical paths of directories. {@link File#getCanonicalFile()} needs to resolve
+ * every path element, which is expensive on network file systems. Files are canonicalized
+ * by canonicalizing their directory once and only resolving the file itself if it is a symbolic link.
+ *
+ * <p>Like {@link FileSetCache}, a shared instance lives in the plugin context.
+ */
+class CanonicalPathCache {
+    private static final String CONTEXT_KEY = CanonicalPathCache.class.getName();
+
+    private final Map<File, File> directories = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the cache from the plugin context, creating it if needed.
+     *
+     * @param pluginContext the plugin context, might be <code>null</code>
+     * @return the shared cache or a new one, if there is no plugin context
+     */
+    @SuppressWarnings("unchecked")
+    static CanonicalPathCache getInstance(Map pluginContext) {
+        if (pluginContext == null) {
+            return new CanonicalPathCache();
+        }
+        synchronized (pluginContext) {
+            CanonicalPathCache cache = (CanonicalPathCache) pluginContext.get(CONTEXT_KEY);
+            if (cache == null) {
+                cache = new CanonicalPathCache();
+                pluginContext.put(CONTEXT_KEY, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Gets the canonical form of the given file.
+     *
+     * @param file the file
+     * @return the canonical file
+     * @throws IOException if the canonical path can't be determined
+     */
+    File getCanonicalFile(File file) throws IOException {
+        File absolute = file.getAbsoluteFile();
+        File parent = absolute.getParentFile();
+        String name = absolute.getName();
+        if (parent == null || ".".equals(name) || "..".equals(name) || Files.isSymbolicLink(absolute.toPath())) {
+            return absolute.getCanonicalFile();
+        }
+        return new File(getCanonicalDirectory(parent), name);
+    }
+
+    /**
+     * Gets the canonical form of the given directory.
+     *
+     * @param directory the directory
+     * @return the canonical directory
+     * @throws IOException if the canonical path can't be determined
+     */
+    File getCanonicalDirectory(File directory) throws IOException {
+        try {
+            return directories.computeIfAbsent(directory.getAbsoluteFile(), d -> {
+                try {
+                    return d.getCanonicalFile();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Registers a directory, which is already known to be canonical.
+     *
+     * @param canonicalDirectory the canonical directory
+     */
+    void addCanonicalDirectory(File canonicalDirectory) {
+        directories.put(canonicalDirectory, canonicalDirectory);
+    }
+}
@@ -20,15 +20,18 @@ package org.apache.maven.plugins.pmd;
 
 import javax.inject.Inject;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
+import java.util.Map;
 
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.pmd.exec.CpdRequest;
 import org.apache.maven.plugins.pmd.exec.CpdResult;
 import org.apache.maven.plugins.pmd.exec.CpdServiceExecutor;
+import org.apache.maven.plugins.pmd.exec.PhaseEvent;
 import org.apache.maven.reporting.MavenReportException;
 import org.codehaus.plexus.i18n.I18N;
 
@@ -148,7 +151,12 @@ public class CpdReport extends AbstractPmdReport {
 
             CpdReportRenderer renderer = new CpdReportRenderer(
                     getSink(), i18n, locale, filesToProcess, cpdResult.getDuplications(), isAggregator());
-            renderer.render();
+            try (PhaseEvent event = beginPhase(PhaseEvent.RENDERING)) {
+                renderer.render();
+            }
+            if (metrics) {
+                writeCpdMetrics();
+            }
         } finally {
             Thread.currentThread().setContextClassLoader(origLoader);
         }
@@ -160,6 +168,13 @@ public class CpdReport extends AbstractPmdReport {
             return false;
         }
 
+        Shard shard = getShard();
+        if (shard != null && !shard.isFirst()) {
+            // duplications might span several shards, so CPD analyzes all files in the first shard
+            getLog().info("Skipping CPD in shard " + shard + ", it is executed in shard 1 only.");
+            return false;
+        }
+
         boolean result = canGenerateReportInternal();
         if (result) {
             executeCpd();
@@ -180,7 +195,14 @@ public class CpdReport extends AbstractPmdReport {
         try {
             filesToProcess = getFilesToProcess();
 
+            if (PmdMergeMojo.isMerged(getPluginContext(), "cpd.xml")) {
+                getLog().info("Using the merged report of the shards - skipping the execution of CPD.");
+                cpdResult = new CpdResult(new File(targetDirectory, "cpd.xml"), getOutputEncoding());
+                return;
+            }
+
             CpdRequest request = new CpdRequest();
+            request.setExecutionContext(project.getArtifactId(), getGoal());
             request.setMinimumTokens(minimumTokens);
             request.setLanguage(language);
             request.setIgnoreAnnotations(ignoreAnnotations);
@@ -188,6 +210,7 @@ public class CpdReport extends AbstractPmdReport {
             request.setIgnoreLiterals(ignoreLiterals);
             request.setSourceEncoding(getInputEncoding());
             request.addFiles(filesToProcess.keySet());
+            request.setProgress(progressInterval, getProgressEventsFile());
             request.setExcludeFromFailureFile(excludeFromFailureFile);
             request.setTargetDirectory(targetDirectory.getAbsolutePath());
             request.setOutputEncoding(getOutputEncoding());
@@ -196,7 +219,19 @@ public class CpdReport extends AbstractPmdReport {
             request.setReportOutputDirectory(getReportOutputDirectory().getAbsolutePath());
             request.setJdkToolchain(getJdkToolchain());
 
+            long executionStart = System.nanoTime();
             cpdResult = serviceExecutor.execute(request);
+            long executionNanos = System.nanoTime() - executionStart;
+            recordPhaseDuration("execution", executionStart);
+            // CPD has no timing data per file, so only the budget for the whole analysis applies
+            checkTimeBudget(new TimeBudget(maxAnalysisTime, 0), "CPD", executionNanos, null);
+            Shard shard = getShard();
+            if (shard != null) {
+                collectShardReport(shard, new File(targetDirectory, "cpd.xml"));
+            }
+            if (metrics) {
+                writeCpdMetrics();
+            }
         } catch (UnsupportedEncodingException e) {
             throw new MavenReportException("Encoding '" + getInputEncoding() + "' is not supported.", e);
         } catch (IOException e) {
@@ -204,6 +239,18 @@ public class CpdReport extends AbstractPmdReport {
         }
     }
 
+    /**
+     * Writes the metrics of this execution, see the parameter <code>metrics</code>.
+     */
+    private void writeCpdMetrics() {
+        AnalysisMetrics result = createMetrics();
+        Map<String, String> labels =
+                AnalysisMetrics.labels(AnalysisMetrics.MODULE, project.getArtifactId(), "goal", getGoal());
+        result.add(AnalysisMetrics.Metric.FILES_ANALYZED, labels, filesToProcess.size());
+        result.add(AnalysisMetrics.Metric.DUPLICATIONS, labels, cpdResult.getDuplications().size());
+        writeMetrics(result, "cpd");
+    }
+
     /**
      * {@inheritDoc}
      */
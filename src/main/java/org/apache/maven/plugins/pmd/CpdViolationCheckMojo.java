@@ -30,6 +30,7 @@ import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.pmd.exec.CpdResult;
 import org.apache.maven.plugins.pmd.model.CpdErrorDetail;
 import org.apache.maven.plugins.pmd.model.CpdFile;
 import org.apache.maven.plugins.pmd.model.Duplication;
@@ -110,6 +111,7 @@ public class CpdViolationCheckMojo extends AbstractPmdViolationCheckMojo<Duplica
         try (InputStream in = new FileInputStream(cpdFile)) {
             CpdXpp3Reader reader = new CpdXpp3Reader();
             CpdErrorDetail details = reader.read(in, false);
+            CpdResult.deduplicateStrings(details.getDuplications());
             return details.getDuplications();
         }
     }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the files found by {@link AbstractPmdReport#getFilesToProcess()}, so that the
+ * source directories are walked only once per project, even if several goals (e.g. pmd and cpd)
+ * are executed.
+ *
+ * <p>The cache lives in the plugin context, which Maven shares between all mojos of this plugin
+ * for the same project during one build. An entry is only reused as long as none of the walked
+ * directories has been modified since, nor any of the files checked by the {@link SourceFileFilter}.
+ */
+class FileSetCache {
+    private static final String CONTEXT_KEY = FileSetCache.class.getName();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Gets the cache from the plugin context, creating it if needed.
+     *
+     * @param pluginContext the plugin context, might be <code>null</code>
+     * @return the cache, or <code>null</code> if there is no plugin context
+     */
+    @SuppressWarnings("unchecked")
+    static FileSetCache getInstance(Map pluginContext) {
+        if (pluginContext == null) {
+            return null;
+        }
+        synchronized (pluginContext) {
+            FileSetCache cache = (FileSetCache) pluginContext.get(CONTEXT_KEY);
+            if (cache == null) {
+                cache = new FileSetCache();
+                pluginContext.put(CONTEXT_KEY, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Gets the files found by a previous scan with the same configuration.
+     *
+     * @param key the configuration of the scan
+     * @return the scan result or <code>null</code>, if there was no previous scan or the directories changed since then
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.isUpToDate()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the result of a scan.
+     *
+     * @param key the configuration of the scan
+     * @param files the found files
+     * @param skippedFiles the files skipped by the {@link SourceFileFilter}
+     * @param timestamps the walked directories and the files checked by the {@link SourceFileFilter}
+     *     with their last modification time
+     * @param scanStart the time in milliseconds the scan has been started
+     */
+    synchronized void put(
+            String key,
+            Map<File, PmdFileInfo> files,
+            List<SkippedFile> skippedFiles,
+            Map<Path, FileTime> timestamps,
+            long scanStart) {
+        long granularity = getTimestampGranularityMillis(timestamps.values());
+        for (FileTime timestamp : timestamps.values()) {
+            if (timestamp.toMillis() > scanStart - granularity) {
+                // too recent, a later modification might not change the timestamp
+                entries.remove(key);
+                return;
+            }
+        }
+        entries.put(key, new Entry(files, skippedFiles, new HashMap<>(timestamps)));
+    }
+
+    /**
+     * Estimates the timestamp granularity of the file system from the timestamps themselves: a file system,
+     * which stores only whole seconds (e.g. HFS+) or even seconds (e.g. FAT), never reports anything finer.
+     *
+     * @param timestamps the timestamps of one scan
+     * @return the granularity in milliseconds, at least 1
+     */
+    static long getTimestampGranularityMillis(Collection<FileTime> timestamps) {
+        long granularity = 2000L;
+        for (FileTime timestamp : timestamps) {
+            long millis = timestamp.toMillis();
+            if (millis % 1000L != 0) {
+                return 1L;
+            }
+            if (millis % 2000L != 0) {
+                granularity = 1000L;
+            }
+        }
+        return granularity;
+    }
+
+    static final class Entry {
+        private final Map<File, PmdFileInfo> files;
+        private final List<SkippedFile> skippedFiles;
+        private final Map<Path, FileTime> timestamps;
+
+        Entry(Map<File, PmdFileInfo> files, List<SkippedFile> skippedFiles, Map<Path, FileTime> timestamps) {
+            this.files = files;
+            this.skippedFiles = skippedFiles;
+            this.timestamps = timestamps;
+        }
+
+        Map<File, PmdFileInfo> getFiles() {
+            return files;
+        }
+
+        List<SkippedFile> getSkippedFiles() {
+            return skippedFiles;
+        }
+        boolean isUpToDate() {
+            for (Map.Entry<Path, FileTime> path : timestamps.entrySet()) {
+                try {
+                    if (!path.getValue().equals(Files.getLastModifiedTime(path.getKey()))) {
+                        return false;
+                    }
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.pmd.exec.XmlReportMerger;
+
+/**
+ * Merges the XML reports of the shards (see the parameter <code>shard</code> of <code>pmd:pmd</code>)
+ * into <code>pmd.xml</code> and <code>cpd.xml</code>. The check goals, which are executed afterwards
+ * in the same build, use the merged reports instead of analyzing the files again, e.g.
+ * <code>mvn pmd:merge pmd:check pmd:cpd-check</code>.
+ *
+ * @since 3.28.1
+ */
+@Mojo(name = "merge", threadSafe = true)
+public class PmdMergeMojo extends AbstractMojo {
+    private static final String MERGED_REPORTS = PmdMergeMojo.class.getName() + ".mergedReports";
+
+    private static final Pattern SHARD_DIRECTORY = Pattern.compile("shard-(\\d+)-of-(\\d+)");
+
+    /**
+     * The directory, where the reports of the shards have been collected.
+     * It contains one directory <code>shard-i-of-N</code> per shard.
+     */
+    @Parameter(property = "pmd.shardsDirectory", defaultValue = "${project.build.directory}/pmd-shards")
+    private File shardsDirectory;
+
+    /**
+     * The output directory for the merged XML reports.
+     */
+    @Parameter(property = "project.build.directory", required = true)
+    private File targetDirectory;
+
+    /**
+     * The file encoding of the merged reports.
+     */
+    @Parameter(property = "outputEncoding", defaultValue = "${project.reporting.outputEncoding}")
+    private String outputEncoding;
+
+    /**
+     * Skip the merge. Most useful on the command line via "-Dpmd.skip=true".
+     */
+    @Parameter(property = "pmd.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping PMD execution");
+            return;
+        }
+        if (!shardsDirectory.isDirectory()) {
+            getLog().info("No shard reports found in " + shardsDirectory);
+            return;
+        }
+
+        List<File> shardDirectories = getShardDirectories();
+        merge(shardDirectories, "pmd.xml", XmlReportMerger.PMD_ELEMENTS);
+        merge(shardDirectories, "cpd.xml", XmlReportMerger.CPD_ELEMENTS);
+    }
+
+    /**
+     * @return the directories of the shards, sorted by the index of the shard
+     * @throws MojoExecutionException if not all shards are there
+     */
+    private List<File> getShardDirectories() throws MojoExecutionException {
+        File[] directories = shardsDirectory.listFiles(File::isDirectory);
+        TreeMap<Integer, File> shards = new TreeMap<>();
+        int count = 0;
+        for (File directory : directories == null ? new File[0] : directories) {
+            Matcher matcher = SHARD_DIRECTORY.matcher(directory.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            int shardCount = Integer.parseInt(matcher.group(2));
+            if (count != 0 && shardCount != count) {
+                throw new MojoExecutionException("The shards in " + shardsDirectory + " don't belong to one run: "
+                        + "found " + shardCount + " and " + count + " shards");
+            }
+            count = shardCount;
+            shards.put(Integer.parseInt(matcher.group(1)), directory);
+        }
+        if (count == 0) {
+            getLog().info("No shard reports found in " + shardsDirectory);
+            return new ArrayList<>();
+        }
+        for (int i = 1; i <= count; i++) {
+            if (!shards.containsKey(i)) {
+                throw new MojoExecutionException(
+                        "The report of shard " + i + "/" + count + " is missing in " + shardsDirectory);
+            }
+        }
+
+        getLog().info("Merging the reports of " + count + " shards from " + shardsDirectory);
+        return new ArrayList<>(shards.subMap(1, true, count, true).values());
+    }
+
+    private void merge(List<File> shardDirectories, String reportName, List<String> elementOrder)
+            throws MojoExecutionException {
+        List<File> reports = new ArrayList<>();
+        for (File directory : shardDirectories) {
+            File report = new File(directory, reportName);
+            if (report.isFile()) {
+                reports.add(report);
+            }
+        }
+        if (reports.isEmpty()) {
+            return;
+        }
+
+        File target = new File(targetDirectory, reportName);
+        try {
+            target.getParentFile().mkdirs();
+            new XmlReportMerger(elementOrder).merge(reports, target, getOutputEncoding());
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        markMerged(getPluginContext(), reportName);
+        getLog().info("Merged " + reports.size() + " reports into " + target);
+    }
+
+    private String getOutputEncoding() {
+        return outputEncoding != null ? outputEncoding : "UTF-8";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void markMerged(Map pluginContext, String reportName) {
+        if (pluginContext == null) {
+            return;
+        }
+        synchronized (pluginContext) {
+            List<String> merged = (List<String>) pluginContext.get(MERGED_REPORTS);
+            if (merged == null) {
+                merged = new ArrayList<>();
+                pluginContext.put(MERGED_REPORTS, merged);
+            }
+            merged.add(reportName);
+        }
+    }
+
+    /**
+     * Whether the given report has been merged by this goal in the current build. Then the report
+     * goals use the merged report instead of analyzing the files.
+     *
+     * @param pluginContext the plugin context, might be <code>null</code>
+     * @param reportName the name of the report, e.g. <code>pmd.xml</code>
+     * @return <code>true</code> if the report has been merged
+     */
+    static boolean isMerged(Map pluginContext, String reportName) {
+        if (pluginContext == null) {
+            return false;
+        }
+        synchronized (pluginContext) {
+            List<?> merged = (List<?>) pluginContext.get(MERGED_REPORTS);
+            return merged != null && merged.contains(reportName);
+        }
+    }
+}
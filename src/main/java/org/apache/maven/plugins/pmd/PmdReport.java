@@ -22,16 +22,29 @@ import javax.inject.Inject;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RuleSetLoader;
 import net.sourceforge.pmd.renderers.Renderer;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.plugins.pmd.exec.BenchmarkReport;
+import org.apache.maven.plugins.pmd.exec.PhaseEvent;
 import org.apache.maven.plugins.pmd.exec.PmdExecutor;
 import org.apache.maven.plugins.pmd.exec.PmdRequest;
 import org.apache.maven.plugins.pmd.exec.PmdResult;
@@ -54,6 +67,11 @@ import org.codehaus.plexus.resource.loader.ResourceNotFoundException;
  */
 @Mojo(name = "pmd", threadSafe = true, requiresDependencyResolution = ResolutionScope.TEST)
 public class PmdReport extends AbstractPmdReport {
+    /**
+     * The number of files listed in the aggregated benchmark report.
+     */
+    private static final int BENCHMARK_SLOWEST_FILES = 50;
+
     /**
      * The target JDK to analyze based on. Should match the source used in the compiler plugin.
      * Valid values depend on the used PMD version. Most common values are
@@ -118,6 +136,12 @@ public class PmdReport extends AbstractPmdReport {
 
     /**
      * Controls whether PMD will track benchmark information.
+     * Besides the text report, the durations of the phases, the rules and the single files are written
+     * as JSON and CSV next to it, e.g. <code>pmd-benchmark.json</code> and <code>pmd-benchmark.csv</code>.
+     * In a multi-module build, the reports of all modules are aggregated into
+     * <code>pmd-benchmark-reactor.json</code> and <code>pmd-benchmark-reactor.csv</code> in the build
+     * directory of the execution root. They contain the total durations of the rules across all modules
+     * and the {@value #BENCHMARK_SLOWEST_FILES} slowest files.
      *
      * @since 3.1
      */
@@ -132,6 +156,86 @@ public class PmdReport extends AbstractPmdReport {
     @Parameter(property = "pmd.benchmarkOutputFilename", defaultValue = "${project.build.directory}/pmd-benchmark.txt")
     private String benchmarkOutputFilename;
 
+    /**
+     * The time budget for the analysis of a single file in seconds, see <code>maxAnalysisTime</code>.
+     * Setting a budget makes PMD collect the timing data of the rules and files, as with
+     * <code>benchmark</code>, so that the offenders can be listed. <code>0</code> means no budget.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.maxTimePerFile", defaultValue = "0")
+    private int maxTimePerFile;
+
+    /**
+     * Measure the cost of each rule in milliseconds per 1000 lines of analyzed code and write it to
+     * <code>ruleCostProfile</code>. The profile allows other executions to run only the cheap rules,
+     * see <code>maxRuleCost</code>, e.g. the cheap rules on every pull request and all rules nightly.
+     * The <code>analysisCache</code> is not used while profiling, as the rules don't run for cached files.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.profileRuleCosts", defaultValue = "false")
+    private boolean profileRuleCosts;
+
+    /**
+     * The rule cost profile, written by <code>profileRuleCosts</code> and read for <code>maxRuleCost</code>.
+     * To use a profile across builds, point this to a file outside of the build directory.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.ruleCostProfile", defaultValue = "${project.build.directory}/pmd-rule-costs.properties")
+    private File ruleCostProfile;
+
+    /**
+     * Run only the rules, which cost at most this many milliseconds per 1000 lines of code according to
+     * the <code>ruleCostProfile</code>. The more expensive rules are excluded from the resolved rulesets.
+     * Rules, which are not in the profile, are run. If not set, all rules are run.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.maxRuleCost")
+    private Double maxRuleCost;
+
+    /**
+     * Run PMD only for a following check, e.g. <code>mvn pmd:check -Dpmd.checkOnly</code>:
+     * only the rules with a priority up to <code>failurePriority</code> are evaluated, as the other
+     * violations would only be warnings, and only the XML report is written, neither the
+     * <code>format</code> report nor the HTML report.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.checkOnly", defaultValue = "false")
+    private boolean checkOnly;
+
+    /**
+     * The priority up to which violations fail the build, see the goal <code>check</code>.
+     * It is used by <code>checkOnly</code> to evaluate only the rules relevant for failures.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.failurePriority", defaultValue = "5")
+    private int failurePriority = 5;
+
+    /**
+     * Stop the analysis as soon as more failures than <code>maxAllowedViolations</code> have been found,
+     * counting the violations with a priority up to <code>failurePriority</code>, which aren't excluded
+     * by <code>excludeFromFailureFile</code>. The outcome of a following check is decided then, so the
+     * remaining files aren't analyzed. The XML report contains only the results found up to then and
+     * is marked as truncated by a comment at its end, the check reports the results as partial then.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.failFast", defaultValue = "false")
+    private boolean failFast;
+
+    /**
+     * The maximum number of failures, which is allowed for a following check, see <code>failFast</code>.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.maxAllowedViolations", defaultValue = "0")
+    private int maxAllowedViolations;
+
     /**
      * Source level marker used to indicate whether a RuleViolation should be suppressed. If it is not set, PMD's
      * default will be used, which is <code>NOPMD</code>. See also <a
@@ -150,6 +254,17 @@ public class PmdReport extends AbstractPmdReport {
     @Parameter(property = "pmd.skipPmdError", defaultValue = "true")
     private boolean skipPmdError;
 
+    /**
+     * The number of distinct stack traces of processing errors, which are kept for the report and logged.
+     * Errors with the same stack signature, e.g. caused by one broken class of the aux classpath in many
+     * files, share the stack trace of the first one and are rendered without it. The stack traces of further
+     * errors are dropped. A negative value keeps all of them.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.maxProcessingErrorDetails", defaultValue = "20")
+    private int maxProcessingErrorDetails;
+
     /**
      * Enables the analysis cache, which speeds up PMD. This
      * requires a cache file that contains the results of the last
@@ -173,6 +288,56 @@ public class PmdReport extends AbstractPmdReport {
     @Parameter(property = "pmd.analysisCacheLocation", defaultValue = "${project.build.directory}/pmd/pmd.cache")
     private String analysisCacheLocation;
 
+    /**
+     * Start the analysis with the files, that are expected to take the longest, so that a few large files
+     * analyzed at the end don't keep the build waiting while all other threads are already idle.
+     * The analysis time of every file is stored in <code>${project.build.directory}/pmd/pmd-file-timings.txt</code>
+     * and used as estimate for the next run. Files without a previous timing are estimated by their size.
+     * The few most expensive files are analyzed separately, unless the analysis cache is enabled.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.largestFilesFirst", defaultValue = "false")
+    private boolean largestFilesFirst;
+
+    /**
+     * Analyze the files in batches, so that the heap used by PMD stays roughly within this budget (in megabytes).
+     * This is useful for very large modules or aggregated reports, which otherwise run out of memory.
+     * The results of each batch are written to the report files right away, the reports are the same
+     * as without batches. If the analysis cache is enabled, each batch uses its own cache file, named after
+     * the first file of the batch. Adding or removing files might move the boundaries of the following
+     * batches, whose files are then analyzed again.
+     * A value of <code>0</code> analyzes all files at once.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.batchMemoryBudget", defaultValue = "0")
+    private int batchMemoryBudget;
+
+    /**
+     * Split the files into this number of shards and analyze them in parallel, each shard in its own JVM.
+     * The files of a package are kept in the same shard. The XML reports of the shards are merged into one.
+     * Other output formats (see <code>format</code>) are not supported in this mode. Of the benchmark reports
+     * (see <code>benchmark</code>) the JSON and CSV reports are merged, the text reports stay with the shards.
+     * The analysis threads are divided among the shards.
+     * A value of <code>0</code> or <code>1</code> analyzes all files in one JVM.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.shards", defaultValue = "0")
+    private int shards;
+
+    /**
+     * The maximum time in seconds for the analysis of a single file. The analysis of a file that takes longer
+     * is abandoned and reported as processing error, which fails the build unless <code>skipPmdError</code>
+     * is set. Since the rules can't be stopped, the abandoned file might still keep one analysis thread busy.
+     * A value of <code>0</code> disables the timeout.
+     *
+     * @since 3.28.1
+     */
+    @Parameter(property = "pmd.fileTimeout", defaultValue = "0")
+    private int fileTimeout;
+
     /**
      * Also render processing errors into the HTML report.
      * Processing errors are problems, that PMD encountered while executing the rules.
@@ -241,6 +406,9 @@ public class PmdReport extends AbstractPmdReport {
      */
     private PmdResult pmdResult;
 
+    /** The number of threads used by the last analysis, for the metrics. */
+    private int analysisThreads;
+
     @Inject
     public PmdReport(
             ResourceManager locator,
@@ -292,6 +460,11 @@ public class PmdReport extends AbstractPmdReport {
      */
     @Override
     public void executeReport(Locale locale) throws MavenReportException {
+        if (checkOnly) {
+            // only the XML report is needed for the check, which executePmd() writes
+            executePmd();
+            return;
+        }
         ClassLoader origLoader = Thread.currentThread().getContextClassLoader();
         try {
             Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
@@ -306,14 +479,22 @@ public class PmdReport extends AbstractPmdReport {
                     renderRuleViolationPriority,
                     renderViolationsByPriority,
                     isAggregator());
+            renderer.setCanonicalPathCache(CanonicalPathCache.getInstance(getPluginContext()));
+            renderer.setSkippedFiles(skippedFiles);
             if (renderSuppressedViolations) {
                 renderer.setSuppressedViolations(pmdResult.getSuppressedViolations());
             }
             if (renderProcessingErrors) {
                 renderer.setProcessingErrors(pmdResult.getErrors());
+                renderer.setOmittedProcessingErrorDetails(pmdResult.getOmittedErrorDetails());
             }
 
-            renderer.render();
+            try (PhaseEvent event = beginPhase(PhaseEvent.RENDERING)) {
+                renderer.render();
+            }
+            if (metrics) {
+                writePmdMetrics(null);
+            }
         } finally {
             Thread.currentThread().setContextClassLoader(origLoader);
         }
@@ -328,7 +509,10 @@ public class PmdReport extends AbstractPmdReport {
         boolean result = canGenerateReportInternal();
         if (result) {
             executePmd();
-            if (skipEmptyReport) {
+            if (checkOnly) {
+                // no HTML report is generated, the check reads the XML report
+                result = false;
+            } else if (skipEmptyReport) {
                 result = pmdResult.hasViolations();
             }
         }
@@ -342,38 +526,231 @@ public class PmdReport extends AbstractPmdReport {
             return;
         }
 
-        try {
-            filesToProcess = getFilesToProcess();
-
-            if (filesToProcess.isEmpty() && !"java".equals(language)) {
-                getLog().warn("No files found to process. Did you forget to add additional source directories?"
-                        + " (see also build-helper-maven-plugin)");
+        if (PmdMergeMojo.isMerged(getPluginContext(), "pmd.xml")) {
+            getLog().info("Using the merged report of the shards - skipping the execution of PMD.");
+            try {
+                filesToProcess = getFilesToProcess();
+            } catch (IOException e) {
+                throw new MavenReportException("Can't get file list", e);
             }
-        } catch (IOException e) {
-            throw new MavenReportException("Can't get file list", e);
+            pmdResult = new PmdResult(
+                    new File(targetDirectory, "pmd.xml"), getOutputEncoding(), maxProcessingErrorDetails);
+            return;
         }
+        Shard shard = getShard();
+
+        // discover the files in the background, while the rulesets and the aux classpath,
+        // which might require dependency resolution, are being prepared
+        FutureTask<Map<File, PmdFileInfo>> fileDiscovery = new FutureTask<>(this::getFilesToProcess);
+        Thread fileDiscoveryThread = new Thread(fileDiscovery, "pmd-file-discovery");
+        fileDiscoveryThread.setDaemon(true);
+        fileDiscoveryThread.start();
 
         PmdRequest request = new PmdRequest();
         request.setLanguageAndVersion(language, targetJdk);
-        request.setRulesets(resolveRulesets());
-        request.setAuxClasspath(typeResolution ? determineAuxClasspath() : null);
+        request.setExecutionContext(project.getArtifactId(), getGoal());
+        try {
+            try (PhaseEvent event = beginPhase(PhaseEvent.RULESET_RESOLUTION)) {
+                request.setRulesets(resolveRulesets());
+            }
+            if (typeResolution) {
+                try (PhaseEvent event = beginPhase(PhaseEvent.DEPENDENCY_RESOLUTION)) {
+                    request.setAuxClasspath(determineAuxClasspath());
+                }
+            }
+        } catch (MavenReportException | RuntimeException e) {
+            // interrupting the discovery thread stops the walk over the source directories
+            fileDiscovery.cancel(true);
+            throw e;
+        }
         request.setSourceEncoding(getInputEncoding());
+
+        filesToProcess = awaitFileDiscovery(fileDiscovery);
+        if (shard != null) {
+            int total = filesToProcess.size();
+            filesToProcess = shard.select(filesToProcess);
+            getLog().info("Analyzing " + filesToProcess.size() + " of " + total + " files in shard " + shard);
+        }
+        if (filesToProcess.isEmpty() && !"java".equals(language)) {
+            getLog().warn("No files found to process. Did you forget to add additional source directories?"
+                    + " (see also build-helper-maven-plugin)");
+        }
         request.addFiles(filesToProcess.keySet());
-        request.setMinimumPriority(minimumPriority);
+        if (checkOnly && failurePriority < minimumPriority) {
+            getLog().info("Evaluating only the rules with a priority up to " + failurePriority + " for the check");
+            request.setMinimumPriority(failurePriority);
+        } else {
+            request.setMinimumPriority(minimumPriority);
+        }
         request.setSuppressMarker(suppressMarker);
-        request.setBenchmarkOutputLocation(benchmark ? benchmarkOutputFilename : null);
-        request.setAnalysisCacheLocation(analysisCache ? analysisCacheLocation : null);
+        TimeBudget timeBudget = new TimeBudget(maxAnalysisTime, maxTimePerFile);
+        request.setBenchmarkOutputLocation(getBenchmarkOutputLocation(timeBudget));
+        if (analysisCache && profileRuleCosts) {
+            // the rules don't run for cached files, which would make the rules look cheaper
+            getLog().info("Not using the analysis cache, so that every file is analyzed for the rule cost profile");
+            request.setAnalysisCacheLocation(null);
+        } else {
+            request.setAnalysisCacheLocation(analysisCache ? analysisCacheLocation : null);
+        }
+        if (largestFilesFirst && request.getAnalysisCacheLocation() != null) {
+            getLog().info("Not analyzing the most expensive files separately, as the analysis cache is enabled:"
+                    + " the files are only ordered by their estimated cost");
+        }
+        request.setLargestFilesFirst(largestFilesFirst);
+        request.setBatchMemoryBudget(batchMemoryBudget);
+        request.setShards(shards);
+        request.setFileTimeout(fileTimeout);
+        if (failFast) {
+            request.setFailFast(failurePriority, maxAllowedViolations);
+        }
+        request.setProgress(progressInterval, getProgressEventsFile());
         request.setExcludeFromFailureFile(excludeFromFailureFile);
         request.setTargetDirectory(targetDirectory.getAbsolutePath());
         request.setOutputEncoding(getOutputEncoding());
-        request.setFormat(format);
+        request.setFormat(checkOnly ? "xml" : format);
         request.setSkipPmdError(skipPmdError);
+        request.setMaxProcessingErrorDetails(maxProcessingErrorDetails);
         request.setIncludeXmlInReports(includeXmlInReports);
         request.setReportOutputDirectory(getReportOutputDirectory().getAbsolutePath());
         request.setJdkToolchain(getJdkToolchain());
 
         getLog().info("PMD version: " + AbstractPmdReport.getPmdVersion());
+        long executionStart = System.nanoTime();
         pmdResult = serviceExecutor.execute(request);
+        long executionNanos = System.nanoTime() - executionStart;
+        recordPhaseDuration("execution", executionStart);
+        if (timeBudget.isEnabled()) {
+            checkTimeBudget(timeBudget, "PMD", executionNanos, readTimings(request.getBenchmarkOutputLocation()));
+        }
+        if (shard != null) {
+            collectShardReport(shard, new File(targetDirectory, "pmd.xml"));
+        }
+        if (benchmark) {
+            writeReactorBenchmarkReport();
+        }
+        if (metrics) {
+            writePmdMetrics(request.getThreads());
+        }
+        if (profileRuleCosts) {
+            writeRuleCostProfile(request.getBenchmarkOutputLocation());
+        }
+    }
+
+    private void writeRuleCostProfile(String benchmarkOutputLocation) {
+        BenchmarkReport timings = readTimings(benchmarkOutputLocation);
+        if (timings == null) {
+            getLog().warn("No timing data found, the rule cost profile is not written");
+            return;
+        }
+        try {
+            long lines = RuleCostProfile.countLines(filesToProcess.keySet());
+            RuleCostProfile.create(timings, lines).write(ruleCostProfile);
+            getLog().info("Rule cost profile of " + lines + " lines written to " + ruleCostProfile);
+        } catch (IOException e) {
+            getLog().warn("Unable to write the rule cost profile " + ruleCostProfile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the metrics of this execution, see the parameter <code>metrics</code>.
+     *
+     * @param threads the number of analysis threads or <code>null</code> to keep the last known number
+     */
+    private void writePmdMetrics(Integer threads) throws MavenReportException {
+        if (threads != null) {
+            analysisThreads = threads;
+        }
+        AnalysisMetrics result = createMetrics();
+        Map<String, String> labels =
+                AnalysisMetrics.labels(AnalysisMetrics.MODULE, project.getArtifactId(), "goal", getGoal());
+        result.add(AnalysisMetrics.Metric.FILES_ANALYZED, labels, filesToProcess.size());
+        result.add(AnalysisMetrics.Metric.ANALYSIS_THREADS, labels, analysisThreads);
+        int[] violationsByPriority = pmdResult.getViolationStore().countByPriority();
+        for (int priority = 0; priority < violationsByPriority.length; priority++) {
+            if (violationsByPriority[priority] == 0) {
+                continue;
+            }
+            Map<String, String> priorityLabels = new LinkedHashMap<>(labels);
+            priorityLabels.put("priority", String.valueOf(priority));
+            result.add(AnalysisMetrics.Metric.VIOLATIONS, priorityLabels, violationsByPriority[priority]);
+        }
+        writeMetrics(result, "pmd");
+    }
+
+    /**
+     * @return the location of the benchmark report, if benchmarking is enabled, or if the timing data
+     *     is needed for a time budget or the rule cost profile, otherwise <code>null</code>
+     */
+    private String getBenchmarkOutputLocation(TimeBudget timeBudget) {
+        if (benchmark) {
+            return benchmarkOutputFilename;
+        }
+        if (timeBudget.isEnabled() || profileRuleCosts) {
+            return new File(targetDirectory, "pmd/pmd-timings.txt").getAbsolutePath();
+        }
+        return null;
+    }
+
+    private BenchmarkReport readTimings(String benchmarkOutputLocation) {
+        if (benchmarkOutputLocation == null) {
+            return null;
+        }
+        File csvReport = BenchmarkReport.getReportFile(new File(benchmarkOutputLocation), ".csv");
+        if (!csvReport.isFile()) {
+            return null;
+        }
+        try {
+            return BenchmarkReport.readCsv(csvReport);
+        } catch (IOException e) {
+            getLog().warn("Unable to read the timing data " + csvReport + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Aggregates the benchmark reports of the modules, which have been written during this build.
+     */
+    private void writeReactorBenchmarkReport() {
+        File csvReport = BenchmarkReport.getReportFile(new File(benchmarkOutputFilename), ".csv");
+        rollUpReactorReports(csvReport, "benchmark reports", (moduleReports, directory) -> {
+            Map<String, BenchmarkReport> reports = new LinkedHashMap<>();
+            for (Map.Entry<MavenProject, File> moduleReport : moduleReports.entrySet()) {
+                reports.put(
+                        moduleReport.getKey().getArtifactId(), BenchmarkReport.readCsv(moduleReport.getValue()));
+            }
+            BenchmarkReport aggregated = BenchmarkReport.aggregate(reports, BENCHMARK_SLOWEST_FILES);
+            Files.createDirectories(directory.toPath());
+            try (Writer writer = Files.newBufferedWriter(
+                    new File(directory, "pmd-benchmark-reactor.json").toPath(), StandardCharsets.UTF_8)) {
+                aggregated.writeJson(writer);
+            }
+            try (Writer writer = Files.newBufferedWriter(
+                    new File(directory, "pmd-benchmark-reactor.csv").toPath(), StandardCharsets.UTF_8)) {
+                aggregated.writeCsv(writer);
+            }
+        });
+    }
+
+    private Map<File, PmdFileInfo> awaitFileDiscovery(FutureTask<Map<File, PmdFileInfo>> fileDiscovery)
+            throws MavenReportException {
+        try {
+            return fileDiscovery.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MavenReportException) {
+                throw (MavenReportException) cause;
+            }
+            if (cause instanceof Exception) {
+                throw new MavenReportException("Can't get file list", (Exception) cause);
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new Error(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException("Can't get file list", e);
+        }
     }
 
     /**
@@ -409,9 +786,78 @@ public class PmdReport extends AbstractPmdReport {
         } catch (ResourceNotFoundException | FileResourceCreationException e) {
             throw new MavenReportException(e.getMessage(), e);
         }
+        if (maxRuleCost != null) {
+            return excludeExpensiveRules(sets);
+        }
         return Arrays.asList(sets);
     }
 
+    /**
+     * Replaces the rulesets, which contain rules more expensive than {@link #maxRuleCost}, by rulesets
+     * referencing them with these rules excluded.
+     *
+     * @param sets the resolved rulesets
+     * @return the rulesets to use
+     */
+    private List<String> excludeExpensiveRules(String[] sets) throws MavenReportException {
+        Set<String> expensiveRules;
+        try {
+            expensiveRules = RuleCostProfile.read(ruleCostProfile).getRulesAbove(maxRuleCost);
+        } catch (IOException e) {
+            throw new MavenReportException("Unable to read the rule cost profile " + ruleCostProfile, e);
+        }
+
+        List<String> result = new ArrayList<>();
+        RuleSetLoader loader = new RuleSetLoader().warnDeprecated(false);
+        for (String set : sets) {
+            Set<String> excluded = new TreeSet<>();
+            try {
+                for (Rule rule : loader.loadFromResource(set).getRules()) {
+                    if (expensiveRules.contains(rule.getName())) {
+                        excluded.add(rule.getName());
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw new MavenReportException("Unable to load the ruleset " + set + ": " + e.getMessage(), e);
+            }
+            if (excluded.isEmpty()) {
+                result.add(set);
+                continue;
+            }
+
+            getLog().info("Excluding " + excluded.size() + " rules more expensive than " + maxRuleCost
+                    + " ms per 1000 lines: " + String.join(", ", excluded));
+            File filtered = new File(set.substring(0, set.length() - ".xml".length()) + "-cheap.xml");
+            try (Writer writer = Files.newBufferedWriter(filtered.toPath(), StandardCharsets.UTF_8)) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                writer.write("<ruleset name=\"" + escapeXml(filtered.getName()) + "\"\n");
+                writer.write("    xmlns=\"http://pmd.sourceforge.net/ruleset/2.0.0\"\n");
+                writer.write("    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+                writer.write("    xsi:schemaLocation=\"http://pmd.sourceforge.net/ruleset/2.0.0"
+                        + " https://pmd.sourceforge.io/ruleset_2_0_0.xsd\">\n");
+                writer.write("  <description>The rules of " + escapeXml(set) + " up to a cost of " + maxRuleCost
+                        + " ms per 1000 lines</description>\n");
+                writer.write("  <rule ref=\"" + escapeXml(set) + "\">\n");
+                for (String rule : excluded) {
+                    writer.write("    <exclude name=\"" + escapeXml(rule) + "\"/>\n");
+                }
+                writer.write("  </rule>\n");
+                writer.write("</ruleset>\n");
+            } catch (IOException e) {
+                throw new MavenReportException("Unable to write the ruleset " + filtered, e);
+            }
+            result.add(filtered.getAbsolutePath());
+        }
+        return result;
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+
     private String determineRulesetFilename(String ruleset) {
         String result = ruleset.trim();
         String lowercase = result.toLowerCase(Locale.ROOT);
@@ -25,7 +25,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -33,6 +33,7 @@ import java.util.Map;
 import net.sourceforge.pmd.lang.rule.RulePriority;
 import org.apache.maven.doxia.sink.Sink;
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.pmd.exec.ViolationStore;
 import org.apache.maven.plugins.pmd.model.ProcessingError;
 import org.apache.maven.plugins.pmd.model.SuppressedViolation;
 import org.apache.maven.plugins.pmd.model.Violation;
@@ -58,7 +59,7 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
     // TODO Should not share state
     private String currentFilename;
 
-    private final Collection<Violation> violations;
+    private final ViolationStore.ViolationList violations;
 
     private boolean renderRuleViolationPriority;
 
@@ -70,6 +71,12 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
 
     private Collection<ProcessingError> processingErrors = new ArrayList<>();
 
+    private int omittedProcessingErrorDetails;
+
+    private Collection<SkippedFile> skippedFiles = new ArrayList<>();
+
+    private CanonicalPathCache canonicalPathCache = new CanonicalPathCache();
+
     public PmdReportRenderer(
             Log log,
             Sink sink,
@@ -85,7 +92,7 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
         this.i18n = i18n;
         this.locale = locale;
         this.files = files;
-        this.violations = violations;
+        this.violations = ViolationStore.toList(violations);
         this.renderRuleViolationPriority = renderRuleViolationPriority;
         this.renderViolationsByPriority = renderViolationsByPriority;
         this.aggregate = aggregate;
@@ -99,6 +106,22 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
         this.processingErrors = processingErrors;
     }
 
+    /**
+     * @param omittedProcessingErrorDetails the number of processing errors without their stack trace,
+     *     which has been dropped because of <code>maxProcessingErrorDetails</code>
+     */
+    void setOmittedProcessingErrorDetails(int omittedProcessingErrorDetails) {
+        this.omittedProcessingErrorDetails = omittedProcessingErrorDetails;
+    }
+
+    void setSkippedFiles(Collection<SkippedFile> skippedFiles) {
+        this.skippedFiles = skippedFiles;
+    }
+
+    void setCanonicalPathCache(CanonicalPathCache canonicalPathCache) {
+        this.canonicalPathCache = canonicalPathCache;
+    }
+
     @Override
     public String getTitle() {
         return getI18nString("title");
@@ -133,6 +156,8 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
 
         renderProcessingErrors();
 
+        renderSkippedFiles();
+
         endSection();
     }
 
@@ -223,20 +248,10 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
 
         startSection(getI18nString("violationsByPriority"));
 
-        Map<RulePriority, List<Violation>> violationsByPriority = new HashMap<>();
-        for (Violation violation : violations) {
-            RulePriority priority = RulePriority.valueOf(violation.getPriority());
-            List<Violation> violationSegment = violationsByPriority.get(priority);
-            if (violationSegment == null) {
-                violationSegment = new ArrayList<>();
-                violationsByPriority.put(priority, violationSegment);
-            }
-            violationSegment.add(violation);
-        }
-
         for (RulePriority priority : RulePriority.values()) {
-            List<Violation> violationsWithPriority = violationsByPriority.get(priority);
-            if (violationsWithPriority == null || violationsWithPriority.isEmpty()) {
+            ViolationStore.ViolationList violationsWithPriority =
+                    violations.withPriority(value -> RulePriority.valueOf(value) == priority);
+            if (violationsWithPriority.isEmpty()) {
                 continue;
             }
 
@@ -256,25 +271,11 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
         this.renderRuleViolationPriority = oldPriorityColumn;
     }
 
-    private void renderViolationsTable(Collection<Violation> violationSegment) {
-        List<Violation> violationSegmentCopy = new ArrayList<>(violationSegment);
-        Collections.sort(violationSegmentCopy, new Comparator<Violation>() {
-            /**
-             * {@inheritDoc}
-             */
-            public int compare(Violation o1, Violation o2) {
-                int filenames = o1.getFileName().compareTo(o2.getFileName());
-                if (filenames == 0) {
-                    return o1.getBeginline() - o2.getBeginline();
-                } else {
-                    return filenames;
-                }
-            }
-        });
-
+    private void renderViolationsTable(ViolationStore.ViolationList violationSegment) {
+        // sorted on the columns of the store, the violations are created one at a time
         boolean fileSectionStarted = false;
         String previousFilename = null;
-        for (Violation ruleViolation : violationSegmentCopy) {
+        for (Violation ruleViolation : violationSegment.sortedByFileAndLine()) {
             String currentFn = ruleViolation.getFileName();
             PmdFileInfo fileInfo = determineFileInfo(currentFn);
 
@@ -382,15 +383,20 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
             getI18nString("processingErrors.column.filename"), getI18nString("processingErrors.column.problem")
         });
 
+        // errors with the same stack signature share their detail, which is rendered only once
+        Map<String, String> renderedDetails = new IdentityHashMap<>();
         for (ProcessingError error : processingErrorsCopy) {
-            renderSingleProcessingError(error);
+            renderSingleProcessingError(error, renderedDetails);
         }
 
         endTable();
+        if (omittedProcessingErrorDetails > 0) {
+            paragraph(omittedProcessingErrorDetails + " " + getI18nString("processingErrors.detailsOmitted"));
+        }
         endSection();
     }
 
-    private void renderSingleProcessingError(ProcessingError error) {
+    private void renderSingleProcessingError(ProcessingError error, Map<String, String> renderedDetails) {
         String filename = error.getFilename();
         PmdFileInfo fileInfo = determineFileInfo(filename);
         filename = makeFileSectionName(shortenFilename(filename, fileInfo), fileInfo);
@@ -399,13 +405,47 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
         tableCell(filename);
         sink.tableCell();
         sink.text(error.getMsg());
-        sink.verbatim(null);
-        sink.rawText(error.getDetail());
-        sink.verbatim_();
+        String detail = error.getDetail();
+        if (detail != null) {
+            String firstFilename = renderedDetails.putIfAbsent(detail, filename);
+            if (firstFilename == null) {
+                sink.verbatim(null);
+                sink.rawText(detail);
+                sink.verbatim_();
+            } else {
+                sink.lineBreak();
+                sink.text(getI18nString("processingErrors.sameDetail") + " " + firstFilename);
+            }
+        }
         sink.tableCell_();
         sink.tableRow_();
     }
 
+    private void renderSkippedFiles() {
+        if (skippedFiles.isEmpty()) {
+            return;
+        }
+
+        startSection(getI18nString("skippedFiles.title"));
+
+        startTable();
+        tableHeader(new String[] {
+            getI18nString("skippedFiles.column.filename"), getI18nString("skippedFiles.column.reason")
+        });
+
+        for (SkippedFile skippedFile : skippedFiles) {
+            PmdFileInfo fileInfo = skippedFile.getFileInfo();
+            String filename = shortenFilename(skippedFile.getFile().getPath(), fileInfo);
+            sink.tableRow();
+            tableCell(makeFileSectionName(filename, fileInfo));
+            tableCell(getI18nString("skippedFiles.reason." + skippedFile.getReason()));
+            sink.tableRow_();
+        }
+
+        endTable();
+        endSection();
+    }
+
     private String shortenFilename(String filename, PmdFileInfo fileInfo) {
         String result = filename;
         if (fileInfo != null && fileInfo.getSourceDirectory() != null) {
@@ -423,9 +463,15 @@ public class PmdReportRenderer extends AbstractMavenReportRenderer {
     }
 
     private PmdFileInfo determineFileInfo(String filename) {
+        File file = new File(filename);
+        PmdFileInfo fileInfo = files.get(file);
+        if (fileInfo != null) {
+            // PMD reports the canonical paths it has been given
+            return fileInfo;
+        }
         try {
-            File canonicalFilename = new File(filename).getCanonicalFile();
-            PmdFileInfo fileInfo = files.get(canonicalFilename);
+            File canonicalFilename = canonicalPathCache.getCanonicalFile(file);
+            fileInfo = files.get(canonicalFilename);
             if (fileInfo == null) {
                 log.warn("Couldn't determine PmdFileInfo for file " + filename + " (canonical: " + canonicalFilename
                         + "). XRef links won't be available.");
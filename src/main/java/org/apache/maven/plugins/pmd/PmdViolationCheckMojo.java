@@ -19,10 +19,7 @@
 package org.apache.maven.plugins.pmd;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -31,10 +28,9 @@ import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.plugins.pmd.model.PmdErrorDetail;
-import org.apache.maven.plugins.pmd.model.PmdFile;
+import org.apache.maven.plugins.pmd.exec.PmdResultReader;
+import org.apache.maven.plugins.pmd.exec.ViolationStore;
 import org.apache.maven.plugins.pmd.model.Violation;
-import org.apache.maven.plugins.pmd.model.io.xpp3.PmdXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 /**
@@ -112,20 +108,13 @@ public class PmdViolationCheckMojo extends AbstractPmdViolationCheckMojo<Violati
 
     @Override
     protected List<Violation> getErrorDetails(File pmdFile) throws XmlPullParserException, IOException {
-        try (InputStream in = new FileInputStream(pmdFile)) {
-            PmdXpp3Reader reader = new PmdXpp3Reader();
-            PmdErrorDetail details = reader.read(in, false);
-            List<Violation> violations = new ArrayList<>();
-            for (PmdFile file : details.getFiles()) {
-                String fullPath = file.getName();
-
-                for (Violation violation : file.getViolations()) {
-                    violation.setFileName(getFilename(fullPath, violation.getViolationPackage()));
-                    violations.add(violation);
-                }
-            }
-            return violations;
+        // only the violations are read, the suppressed violations and errors are skipped
+        ViolationStore violations = new ViolationStore();
+        new PmdResultReader(pmdFile, null).readViolations(violations);
+        for (int i = 0; i < violations.size(); i++) {
+            violations.setFileName(i, getFilename(violations.getFileName(i), violations.getViolationPackage(i)));
         }
+        return violations.asList();
     }
 
     @Override
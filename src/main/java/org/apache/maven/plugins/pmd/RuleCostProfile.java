@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.maven.plugins.pmd.exec.BenchmarkReport;
+
+/**
+ * The cost of the rules in milliseconds per 1000 lines of analyzed code, measured by a profiling run.
+ * It allows executions to run only the cheap rules, see the parameter <code>maxRuleCost</code>.
+ * The profile is stored as a properties file with the rule names as keys.
+ */
+class RuleCostProfile {
+    private final Map<String, Double> costs;
+
+    private RuleCostProfile(Map<String, Double> costs) {
+        this.costs = costs;
+    }
+
+    /**
+     * Creates the profile from the timing data of an analysis.
+     *
+     * @param timings the timing data
+     * @param lines the number of analyzed lines
+     * @return the profile
+     */
+    static RuleCostProfile create(BenchmarkReport timings, long lines) {
+        double kloc = Math.max(1, lines) / 1000.0;
+        Map<String, Double> costs = new TreeMap<>();
+        for (BenchmarkReport.Entry entry : timings.getEntries()) {
+            if (BenchmarkReport.RULE.equals(entry.getType())) {
+                costs.merge(entry.getName(), entry.getSelfNanos() / 1e6 / kloc, Double::sum);
+            }
+        }
+        return new RuleCostProfile(costs);
+    }
+
+    /**
+     * @return the rule names with their cost in milliseconds per 1000 lines
+     */
+    Map<String, Double> getCosts() {
+        return costs;
+    }
+
+    /**
+     * Gets the rules, which are more expensive than the given cost. Rules, which are not in the
+     * profile, are considered cheap.
+     *
+     * @param maxCost the maximum cost in milliseconds per 1000 lines
+     * @return the names of the expensive rules
+     */
+    Set<String> getRulesAbove(double maxCost) {
+        Set<String> result = new TreeSet<>();
+        for (Map.Entry<String, Double> cost : costs.entrySet()) {
+            if (cost.getValue() > maxCost) {
+                result.add(cost.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads a profile written by {@link #write(File)}.
+     *
+     * @param file the profile
+     * @return the profile
+     * @throws IOException if the profile can't be read
+     */
+    static RuleCostProfile read(File file) throws IOException {
+        Map<String, Double> costs = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                int separator = line.indexOf('=');
+                if (line.isEmpty() || line.startsWith("#") || separator < 0) {
+                    continue;
+                }
+                try {
+                    costs.put(
+                            line.substring(0, separator).trim(),
+                            Double.parseDouble(line.substring(separator + 1).trim()));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid rule cost in " + file + ": " + line, e);
+                }
+            }
+        }
+        return new RuleCostProfile(costs);
+    }
+
+    /**
+     * Writes the profile.
+     *
+     * @param file the target file
+     * @throws IOException if the profile can't be written
+     */
+    void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Couldn't create directory: " + parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("# Cost of the PMD rules in milliseconds per 1000 lines of code\n");
+            for (Map.Entry<String, Double> cost : costs.entrySet()) {
+                writer.write(cost.getKey() + "=" + String.format(Locale.ROOT, "%.3f", cost.getValue()) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Counts the lines of the given files.
+     *
+     * @param files the files
+     * @return the number of lines
+     * @throws IOException if a file can't be read
+     */
+    static long countLines(Collection<File> files) throws IOException {
+        long lines = 0;
+        byte[] buffer = new byte[64 * 1024];
+        for (File file : files) {
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                int read;
+                boolean endsWithNewline = true;
+                while ((read = in.read(buffer)) > 0) {
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == '\n') {
+                            lines++;
+                        }
+                    }
+                    endsWithNewline = buffer[read - 1] == '\n';
+                }
+                if (!endsWithNewline) {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+}
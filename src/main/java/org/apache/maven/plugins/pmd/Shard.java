@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One of several shards of the source files, e.g. <code>2/4</code>, to spread the analysis of a module
+ * across several build nodes. The files are assigned to the shards by a hash of their directory
+ * relative to the source root, so that every node selects the same files, and the files of a package
+ * stay together.
+ */
+class Shard {
+    private final int index;
+
+    private final int count;
+
+    Shard(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Parses a shard in the form <code>i/N</code>, where <code>i</code> is between 1 and <code>N</code>.
+     *
+     * @param shard the shard
+     * @return the shard
+     * @throws IllegalArgumentException if the shard is malformed
+     */
+    static Shard parse(String shard) {
+        int slash = shard.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Invalid shard '" + shard + "', expected i/N");
+        }
+        try {
+            return new Shard(
+                    Integer.parseInt(shard.substring(0, slash).trim()),
+                    Integer.parseInt(shard.substring(slash + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid shard '" + shard + "', expected i/N", e);
+        }
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @return <code>true</code> for the first shard
+     */
+    boolean isFirst() {
+        return index == 1;
+    }
+
+    /**
+     * Selects the files of this shard.
+     *
+     * @param files all files
+     * @return the files of this shard, in the same order
+     */
+    Map<File, PmdFileInfo> select(Map<File, PmdFileInfo> files) {
+        Map<File, PmdFileInfo> selected = new LinkedHashMap<>();
+        for (Map.Entry<File, PmdFileInfo> entry : files.entrySet()) {
+            if (contains(entry.getKey(), entry.getValue().getSourceDirectory())) {
+                selected.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return selected;
+    }
+
+    boolean contains(File file, File sourceDirectory) {
+        // String.hashCode() is specified, so that every JVM computes the same shards
+        return Math.floorMod(getPackageDirectory(file, sourceDirectory).hashCode(), count) == index - 1;
+    }
+
+    /**
+     * @return the directory of the file relative to the source directory, with a leading <code>/</code>,
+     *     or the absolute directory, if the file isn't in the source directory
+     */
+    static String getPackageDirectory(File file, File sourceDirectory) {
+        String directory = file.getParentFile().getAbsolutePath();
+        String root = sourceDirectory.getAbsolutePath();
+        if (root.endsWith(File.separator)) {
+            root = root.substring(0, root.length() - 1);
+        }
+        // the source directory src/main/java doesn't contain src/main/javadoc
+        if (directory.equals(root) || directory.startsWith(root + File.separator)) {
+            directory = directory.substring(root.length());
+        }
+        return directory.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @return the name of the directory, where the reports of this shard are collected
+     */
+    String getDirectoryName() {
+        return "shard-" + index + "-of-" + count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+
+/**
+ * A source file, that has been skipped by the {@link SourceFileFilter}.
+ */
+class SkippedFile {
+    private final File file;
+
+    private final PmdFileInfo fileInfo;
+
+    private final String reason;
+
+    SkippedFile(File file, PmdFileInfo fileInfo, String reason) {
+        this.file = file;
+        this.fileInfo = fileInfo;
+        this.reason = reason;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    PmdFileInfo getFileInfo() {
+        return fileInfo;
+    }
+
+    /**
+     * @return one of the <code>REASON_*</code> constants of {@link SourceFileFilter}
+     */
+    String getReason() {
+        return reason;
+    }
+}
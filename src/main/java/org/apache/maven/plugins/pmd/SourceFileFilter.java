@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides during the file discovery, whether a source file should be skipped, because it is too big
+ * or because it has been generated.
+ *
+ * <p>Only the first {@value #BUFFER_SIZE} bytes of a file are searched for the markers of generated code:
+ * a <code>@Generated</code> annotation in the code before the first type declaration, or one of the usual
+ * phrases like "do not edit" in the leading header comment. The bytes are decoded as ISO-8859-1, which works
+ * for all ASCII compatible encodings.
+ */
+class SourceFileFilter {
+    static final String REASON_SIZE = "size";
+
+    static final String REASON_LINES = "lines";
+
+    static final String REASON_GENERATED = "generated";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * A <code>@Generated</code> annotation, also fully qualified, but not e.g. <code>@GeneratedValue</code>.
+     */
+    private static final Pattern GENERATED_ANNOTATION =
+            Pattern.compile("@\\s*(?:(?:javax|jakarta)\\s*\\.\\s*annotation\\s*\\.\\s*(?:processing\\s*\\.\\s*)?)?"
+                    + "Generated\\b");
+
+    /**
+     * The start of a type declaration, which ends the search for a <code>@Generated</code> annotation.
+     */
+    private static final Pattern TYPE_DECLARATION =
+            Pattern.compile("\\b(?:class|interface|enum|record)\\s+\\p{javaJavaIdentifierStart}");
+
+    /**
+     * Phrases searched case-insensitively in the header comment only, they are too common elsewhere.
+     */
+    private static final String[] GENERATED_HEADER_MARKERS = {
+        "@generated",
+        "do not edit",
+        "auto-generated",
+        "autogenerated",
+        "this file was generated",
+        "this file is generated",
+    };
+
+    private final long maxFileSize;
+
+    private final int maxFileLines;
+
+    private final boolean skipGeneratedFiles;
+
+    /**
+     * @param maxFileSize the maximum size of a file in bytes, <code>0</code> for no limit
+     * @param maxFileLines the maximum number of lines of a file, <code>0</code> for no limit
+     * @param skipGeneratedFiles whether to skip files with a marker of generated code in their header
+     */
+    SourceFileFilter(long maxFileSize, int maxFileLines, boolean skipGeneratedFiles) {
+        this.maxFileSize = maxFileSize;
+        this.maxFileLines = maxFileLines;
+        this.skipGeneratedFiles = skipGeneratedFiles;
+    }
+
+    /**
+     * @return <code>true</code> if any file might be skipped by this filter
+     */
+    boolean isEnabled() {
+        return maxFileSize > 0 || maxFileLines > 0 || skipGeneratedFiles;
+    }
+
+    /**
+     * Checks whether the given file should be skipped.
+     *
+     * @param file the file
+     * @param size the size of the file in bytes
+     * @return the reason to skip the file, one of the <code>REASON_*</code> constants,
+     *     or <code>null</code> if the file should be analyzed
+     * @throws IOException if the file can't be read
+     */
+    String getSkipReason(Path file, long size) throws IOException {
+        if (maxFileSize > 0 && size > maxFileSize) {
+            return REASON_SIZE;
+        }
+        // a file with at most maxFileLines bytes can't have more lines
+        boolean countLines = maxFileLines > 0 && size > maxFileLines;
+        if (!skipGeneratedFiles && !countLines) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(size, 1L)));
+            boolean eof = !fill(channel, buffer);
+            if (skipGeneratedFiles && hasGeneratedMarker(buffer)) {
+                return REASON_GENERATED;
+            }
+            if (countLines && countLines(channel, buffer, eof) > maxFileLines) {
+                return REASON_LINES;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "maxFileSize=" + maxFileSize + ",maxFileLines=" + maxFileLines + ",skipGeneratedFiles="
+                + skipGeneratedFiles;
+    }
+
+    /**
+     * Counts the lines, but stops as soon as there are more than {@link #maxFileLines}.
+     *
+     * @param buffer contains the first bytes of the file
+     * @param eof whether the buffer contains the whole file
+     */
+    private long countLines(FileChannel channel, ByteBuffer buffer, boolean eof) throws IOException {
+        long lineBreaks = 0;
+        byte last = '\n';
+        byte[] bytes = buffer.array();
+        while (buffer.position() > 0) {
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n' && ++lineBreaks > maxFileLines) {
+                    return lineBreaks;
+                }
+            }
+            last = bytes[buffer.position() - 1];
+            if (eof) {
+                break;
+            }
+            buffer.clear();
+            eof = !fill(channel, buffer);
+        }
+        // the last line might not be terminated
+        return last == '\n' ? lineBreaks : lineBreaks + 1;
+    }
+
+    /**
+     * Reads until the buffer is full.
+     *
+     * @return <code>false</code> if the end of the file has been reached
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasGeneratedMarker(ByteBuffer buffer) {
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1);
+        if (GENERATED_ANNOTATION.matcher(getDeclarationHead(text)).find()) {
+            return true;
+        }
+        String header = getHeaderComment(text).toLowerCase(Locale.ROOT);
+        for (String marker : GENERATED_HEADER_MARKERS) {
+            if (header.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the code before the first type declaration, e.g. the package, the imports and the annotations
+     * of the type, without comments and without the contents of string and character literals.
+     *
+     * @param text the beginning of the file
+     * @return the code up to the first type declaration, or all of it if there is none
+     */
+    static String getDeclarationHead(String text) {
+        StringBuilder code = new StringBuilder(text.length());
+        int pos = 0;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (text.startsWith("//", pos)) {
+                int eol = text.indexOf('\n', pos);
+                pos = eol < 0 ? text.length() : eol;
+                code.append(' ');
+            } else if (text.startsWith("/*", pos)) {
+                int close = text.indexOf("*/", pos + 2);
+                pos = close < 0 ? text.length() : close + 2;
+                code.append(' ');
+            } else if (text.startsWith("\"\"\"", pos)) {
+                int close = text.indexOf("\"\"\"", pos + 3);
+                pos = close < 0 ? text.length() : close + 3;
+                code.append("\"\"");
+            } else if (c == '"' || c == '\'') {
+                pos = skipLiteral(text, pos);
+                code.append(c).append(c);
+            } else {
+                code.append(c);
+                pos++;
+            }
+        }
+        Matcher declaration = TYPE_DECLARATION.matcher(code);
+        return declaration.find() ? code.substring(0, declaration.start()) : code.toString();
+    }
+
+    /**
+     * @param text the text
+     * @param start the position of the opening quote of a string or character literal
+     * @return the position after the closing quote, or the end of the line, if the literal is unterminated
+     */
+    private static int skipLiteral(String text, int start) {
+        char quote = text.charAt(start);
+        int pos = start + 1;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote) {
+                return pos + 1;
+            } else if (c == '\n') {
+                return pos;
+            } else {
+                pos++;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * Gets the comments at the beginning of the file, before anything else.
+     *
+     * @param text the beginning of the file
+     * @return the leading line and block comments, might be empty
+     */
+    static String getHeaderComment(String text) {
+        // byte order mark of UTF-8, decoded as ISO-8859-1
+        int start = text.startsWith("\u00EF\u00BB\u00BF") ? 3 : 0;
+        int end = start;
+        int pos = start;
+        while (true) {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            if (text.startsWith("//", pos)) {
+                int eol = text.indexOf('\n', pos);
+                pos = eol < 0 ? text.length() : eol + 1;
+            } else if (text.startsWith("/*", pos)) {
+                int close = text.indexOf("*/", pos + 2);
+                pos = close < 0 ? text.length() : close + 2;
+            } else {
+                return text.substring(start, end);
+            }
+            end = pos;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.codehaus.plexus.util.MatchPatterns;
+
+/**
+ * Collects the source files below one or more source directories, that match the configured
+ * Ant-style include and exclude patterns.
+ *
+ * <p>The directories are walked in parallel, one task per directory. Symbolic links are
+ * followed, but every directory is canonicalized only once: the canonical path of a file is
+ * derived from the canonical path of its directory, unless the file itself is a link. The walked
+ * directories are registered in a {@link CanonicalPathCache}, so that the reported file names
+ * can be resolved later on without touching the file system again.
+ *
+ * <p>If the scanning thread is interrupted, the walk is cancelled: no further directories are listed
+ * and the scan fails with an {@link InterruptedIOException}.
+ */
+class SourceFileScanner {
+    private final MatchPatterns includes;
+
+    private final MatchPatterns excludes;
+
+    /**
+     * The exclude patterns, that end with <code>**</code>. If such a pattern matches a directory,
+     * it matches everything below this directory as well, so the directory doesn't need to be walked.
+     */
+    private final MatchPatterns subtreeExcludes;
+
+    private final CanonicalPathCache canonicalPathCache;
+
+    private SourceFileFilter fileFilter;
+
+    /**
+     * For each source directory of the last scan the skipped files with the reason.
+     */
+    private final List<Map<File, String>> skippedFiles = new ArrayList<>();
+
+    /**
+     * The last modification time of every directory that has been walked.
+     */
+    private final Map<Path, FileTime> directoryTimestamps = new ConcurrentHashMap<>();
+
+    /**
+     * The last modification time of every file, that has been checked by the file filter.
+     * Its decision depends on the content of the file, which can change without touching the directory.
+     */
+    private final Map<Path, FileTime> fileTimestamps = new ConcurrentHashMap<>();
+
+    /**
+     * Set when the scanning thread has been interrupted, the tasks still running stop as soon as possible.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new scanner.
+     *
+     * @param includes the include patterns, relative to a source directory
+     * @param excludes the exclude patterns, relative to a source directory
+     * @param canonicalPathCache receives the canonical directories, that have been walked
+     */
+    SourceFileScanner(Collection<String> includes, Collection<String> excludes, CanonicalPathCache canonicalPathCache) {
+        this.canonicalPathCache = canonicalPathCache;
+        this.includes = MatchPatterns.from(normalizePatterns(includes));
+        List<String> normalizedExcludes = normalizePatterns(excludes);
+        this.excludes = MatchPatterns.from(normalizedExcludes);
+        List<String> subtree = new ArrayList<>();
+        for (String pattern : normalizedExcludes) {
+            if (!pattern.startsWith("%") && ("**".equals(pattern) || pattern.endsWith(File.separator + "**"))) {
+                subtree.add(pattern);
+            }
+        }
+        this.subtreeExcludes = MatchPatterns.from(subtree);
+    }
+
+    /**
+     * Sets a filter, that is applied to all files matching the include and exclude patterns.
+     *
+     * @param fileFilter the filter, might be <code>null</code>
+     */
+    void setFileFilter(SourceFileFilter fileFilter) {
+        this.fileFilter = fileFilter != null && fileFilter.isEnabled() ? fileFilter : null;
+    }
+
+    /**
+     * Same normalization as done by plexus' <code>DirectoryScanner</code>.
+     */
+    private static List<String> normalizePatterns(Collection<String> patterns) {
+        List<String> result = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            String normalized = pattern.trim();
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            if (!normalized.startsWith("%")) {
+                normalized = normalized.replace('/', File.separatorChar).replace('\\', File.separatorChar);
+                if (normalized.endsWith(File.separator)) {
+                    normalized += "**";
+                }
+            }
+            result.add(normalized);
+        }
+        return result;
+    }
+
+    /**
+     * Scans the given directories in parallel.
+     *
+     * @param sourceDirectories the directories to scan, must already be canonical
+     * @return for each given directory the canonical files found, in the same order
+     * @throws IOException if a directory could not be read
+     * @throws InterruptedIOException if the current thread has been interrupted
+     */
+    List<List<File>> scan(List<File> sourceDirectories) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        cancelled = false;
+        try {
+            List<Queue<File>> results = new ArrayList<>(sourceDirectories.size());
+            List<ForkJoinTask<Void>> tasks = new ArrayList<>(sourceDirectories.size());
+            skippedFiles.clear();
+            for (File sourceDirectory : sourceDirectories) {
+                Queue<File> result = new ConcurrentLinkedQueue<>();
+                results.add(result);
+                Map<File, String> skipped = new ConcurrentHashMap<>();
+                skippedFiles.add(skipped);
+                tasks.add(pool.submit(new DirectoryTask(sourceDirectory.toPath(), "", null, result, skipped)));
+            }
+
+            List<List<File>> files = new ArrayList<>(sourceDirectories.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                // unlike join(), get() can be interrupted
+                tasks.get(i).get();
+                files.add(new ArrayList<>(results.get(i)));
+            }
+            return files;
+        } catch (InterruptedException e) {
+            cancelled = true;
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The scan of the source directories has been cancelled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Gets the last modification times of the directories, that have been walked by the last scan.
+     * As long as none of them changes, a new scan would find the same files.
+     *
+     * @return the walked directories with their last modification time
+     */
+    Map<Path, FileTime> getDirectoryTimestamps() {
+        return directoryTimestamps;
+    }
+
+    /**
+     * Gets the last modification times of the files, that have been checked by the file filter during
+     * the last scan. As long as none of them changes, the filter would take the same decisions.
+     *
+     * @return the checked files with their last modification time, empty if there is no file filter
+     */
+    Map<Path, FileTime> getFileTimestamps() {
+        return fileTimestamps;
+    }
+
+    /**
+     * Gets the files, that matched the patterns but have been skipped by the file filter.
+     *
+     * @return for each directory given to the last scan the skipped files with the reason, in the same order
+     * @see SourceFileFilter#getSkipReason(Path, long)
+     */
+    List<Map<File, String>> getSkippedFiles() {
+        return skippedFiles;
+    }
+
+    private boolean isFileIncluded(String relativePath) {
+        return includes.matches(relativePath, true) && !excludes.matches(relativePath, true);
+    }
+
+    private boolean isDirectoryWalked(String relativePath) {
+        return includes.matchesPatternStart(relativePath, true) && !subtreeExcludes.matches(relativePath, true);
+    }
+
+    /**
+     * The chain of canonical directories from the source directory down to the current one.
+     * Used to detect cycles caused by symbolic links.
+     */
+    private static final class Ancestors {
+        private final Path directory;
+        private final Ancestors parent;
+
+        Ancestors(Path directory, Ancestors parent) {
+            this.directory = directory;
+            this.parent = parent;
+        }
+
+        boolean contains(Path candidate) {
+            for (Ancestors a = this; a != null; a = a.parent) {
+                if (a.directory.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final String relativePath;
+        private final Ancestors ancestors;
+        private final Queue<File> result;
+        private final Map<File, String> skipped;
+
+        /**
+         * @param directory the canonical directory to list
+         * @param relativePath the path of this directory relative to the source directory, either empty
+         *                     or ending with a file separator
+         * @param parentAncestors the ancestors of this directory
+         * @param result collects the found files
+         * @param skipped collects the files skipped by the file filter
+         */
+        DirectoryTask(
+                Path directory,
+                String relativePath,
+                Ancestors parentAncestors,
+                Queue<File> result,
+                Map<File, String> skipped) {
+            this.directory = directory;
+            this.relativePath = relativePath;
+            this.ancestors = new Ancestors(directory, parentAncestors);
+            this.result = result;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+            final List<DirectoryTask> subdirectories = new ArrayList<>();
+            try {
+                // maxDepth 1: only the direct entries, which are reported with their (not followed) attributes
+                Files.walkFileTree(
+                        directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+                            @Override
+                            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                                directoryTimestamps.put(dir, attrs.lastModifiedTime());
+                                canonicalPathCache.addCanonicalDirectory(dir.toFile());
+                                return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFile(Path entry, BasicFileAttributes attrs)
+                                    throws IOException {
+                                if (cancelled) {
+                                    return FileVisitResult.TERMINATE;
+                                }
+                                visitEntry(entry, attrs, subdirectories);
+                                return FileVisitResult.CONTINUE;
+                            }
+                        });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            invokeAll(subdirectories);
+        }
+
+        private void visitEntry(Path entry, BasicFileAttributes attrs, List<DirectoryTask> subdirectories)
+                throws IOException {
+            Path canonical = directory.resolve(entry.getFileName());
+            BasicFileAttributes targetAttrs = attrs;
+            if (attrs.isSymbolicLink()) {
+                if (!Files.exists(entry)) {
+                    // dangling link
+                    return;
+                }
+                canonical = entry.toRealPath();
+                targetAttrs = Files.readAttributes(canonical, BasicFileAttributes.class);
+            }
+
+            String name = relativePath + entry.getFileName().toString();
+            if (targetAttrs.isDirectory()) {
+                if (isDirectoryWalked(name) && !ancestors.contains(canonical)) {
+                    subdirectories.add(new DirectoryTask(canonical, name + File.separator, ancestors, result, skipped));
+                }
+            } else if (targetAttrs.isRegularFile() && isFileIncluded(name)) {
+                String skipReason = null;
+                if (fileFilter != null) {
+                    fileTimestamps.put(canonical, targetAttrs.lastModifiedTime());
+                    skipReason = fileFilter.getSkipReason(canonical, targetAttrs.size());
+                }
+                if (skipReason == null) {
+                    result.add(canonical.toFile());
+                } else {
+                    skipped.put(canonical.toFile(), skipReason);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import org.apache.maven.plugins.pmd.exec.BenchmarkReport;
+
+/**
+ * Checks the duration of an analysis against the budgets <code>maxAnalysisTime</code> and
+ * <code>maxTimePerFile</code>. If a budget is exceeded, the slowest rules and files of the timing
+ * data are listed, so that the cause of a performance regression can be found.
+ */
+class TimeBudget {
+    /** The number of rules and files listed as offenders. */
+    static final int OFFENDERS = 5;
+
+    private final long maxAnalysisNanos;
+
+    private final long maxFileNanos;
+
+    /**
+     * @param maxAnalysisTime the budget for the whole analysis in seconds, <code>0</code> for none
+     * @param maxTimePerFile the budget for a single file in seconds, <code>0</code> for none
+     */
+    TimeBudget(int maxAnalysisTime, int maxTimePerFile) {
+        this.maxAnalysisNanos = TimeUnit.SECONDS.toNanos(maxAnalysisTime);
+        this.maxFileNanos = TimeUnit.SECONDS.toNanos(maxTimePerFile);
+    }
+
+    /**
+     * @return <code>true</code> if any budget is set
+     */
+    boolean isEnabled() {
+        return maxAnalysisNanos > 0 || maxFileNanos > 0;
+    }
+
+    /**
+     * Checks the budgets.
+     *
+     * @param analyzer the name of the analyzer, e.g. <code>PMD</code>
+     * @param analysisNanos the wall time of the analysis in nanoseconds
+     * @param timings the timing data of the analysis, <code>null</code> if there is none
+     * @return the message describing the exceeded budgets with the offenders,
+     *     or <code>null</code> if the budgets are kept
+     */
+    String check(String analyzer, long analysisNanos, BenchmarkReport timings) {
+        List<String> exceeded = new ArrayList<>();
+        if (maxAnalysisNanos > 0 && analysisNanos > maxAnalysisNanos) {
+            exceeded.add(analyzer + " took " + formatSeconds(analysisNanos) + ", the budget is "
+                    + formatSeconds(maxAnalysisNanos) + " (maxAnalysisTime)");
+        }
+        List<BenchmarkReport.Entry> files = getEntries(timings, BenchmarkReport.FILE);
+        if (maxFileNanos > 0) {
+            int slowFiles = 0;
+            for (BenchmarkReport.Entry file : files) {
+                if (file.getTotalNanos() > maxFileNanos) {
+                    slowFiles++;
+                }
+            }
+            if (slowFiles > 0) {
+                exceeded.add(slowFiles + " file" + (slowFiles > 1 ? "s" : "") + " took longer than "
+                        + formatSeconds(maxFileNanos) + " (maxTimePerFile)");
+            }
+        }
+        if (exceeded.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder message = new StringBuilder(analyzer).append(" exceeded its time budget: ");
+        message.append(String.join(", ", exceeded)).append('.');
+        List<BenchmarkReport.Entry> rules = getEntries(timings, BenchmarkReport.RULE);
+        rules.sort(Comparator.comparingLong(BenchmarkReport.Entry::getSelfNanos).reversed());
+        appendOffenders(message, "Slowest rules", rules, BenchmarkReport.Entry::getSelfNanos);
+        files.sort(Comparator.comparingLong(BenchmarkReport.Entry::getTotalNanos).reversed());
+        appendOffenders(message, "Slowest files", files, BenchmarkReport.Entry::getTotalNanos);
+        return message.toString();
+    }
+
+    private static List<BenchmarkReport.Entry> getEntries(BenchmarkReport timings, String type) {
+        List<BenchmarkReport.Entry> result = new ArrayList<>();
+        if (timings != null) {
+            for (BenchmarkReport.Entry entry : timings.getEntries()) {
+                if (type.equals(entry.getType())) {
+                    result.add(entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void appendOffenders(
+            StringBuilder message,
+            String title,
+            List<BenchmarkReport.Entry> entries,
+            ToLongFunction<BenchmarkReport.Entry> duration) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        message.append(System.lineSeparator()).append(title).append(':');
+        for (BenchmarkReport.Entry entry : entries.subList(0, Math.min(OFFENDERS, entries.size()))) {
+            message.append(System.lineSeparator())
+                    .append("  ")
+                    .append(entry.getName())
+                    .append(" (")
+                    .append(formatSeconds(duration.applyAsLong(entry)))
+                    .append(')');
+        }
+    }
+
+    private static String formatSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.1f s", nanos / 1e9);
+    }
+}
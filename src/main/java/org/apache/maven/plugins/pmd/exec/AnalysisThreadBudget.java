@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of threads used by all PMD and CPD executions of the build together.
+ *
+ * <p>In a parallel build (<code>mvn -T ...</code>) several modules might run PMD at the same time.
+ * Each execution gets its threads from this budget instead of using all available processors,
+ * so that the total number of analysis threads stays near the number of processors.
+ *
+ * <p>An execution gets at most a fair share of the budget: its size divided by the number of executions,
+ * which are running or waiting for threads. The threads of a running analysis can't be taken back, so the
+ * number of executions is at least the expected number of concurrent executions, i.e. the number of
+ * modules built in parallel. Otherwise the first execution would take all threads, and the executions
+ * of the other modules would have to wait for it.
+ */
+@Named
+@Singleton
+public class AnalysisThreadBudget {
+    private static final Logger LOG = LoggerFactory.getLogger(AnalysisThreadBudget.class);
+
+    private final int size;
+
+    private final Semaphore permits;
+
+    /**
+     * The executions holding or waiting for threads.
+     */
+    private int activeExecutions;
+
+    public AnalysisThreadBudget() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    AnalysisThreadBudget(int size) {
+        this.size = Math.max(1, size);
+        this.permits = new Semaphore(this.size, true);
+    }
+
+    /**
+     * Takes threads from the budget. Waits until at least one thread is available and takes
+     * as many of the other wanted threads as are available right now, up to the fair share.
+     *
+     * @param wanted the number of threads, that would be used without limitation
+     * @param expectedExecutions the number of executions expected to run concurrently, e.g. the number
+     *     of modules built in parallel
+     * @return the lease, which must be closed after the analysis
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Lease acquire(int wanted, int expectedExecutions) throws InterruptedException {
+        synchronized (this) {
+            activeExecutions++;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            executionFinished();
+            throw e;
+        }
+        int executions;
+        synchronized (this) {
+            // the executions, which are still waiting, are counted as well
+            executions = Math.max(activeExecutions, Math.min(expectedExecutions, size));
+        }
+        int limit = Math.max(1, Math.min(wanted, size / executions));
+        int threads = 1;
+        while (threads < limit && permits.tryAcquire()) {
+            threads++;
+        }
+        if (threads < wanted) {
+            LOG.debug(
+                    "Using {} of {} analysis threads, the others are left to {} parallel executions",
+                    threads,
+                    wanted,
+                    executions - 1);
+        }
+        return new Lease(threads);
+    }
+
+    private synchronized void executionFinished() {
+        activeExecutions--;
+    }
+
+    /**
+     * @return the total number of threads
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of executions holding or waiting for threads
+     */
+    synchronized int getActiveExecutions() {
+        return activeExecutions;
+    }
+
+    /**
+     * Threads taken from the budget.
+     */
+    final class Lease implements AutoCloseable {
+        private final int threads;
+
+        private boolean released;
+
+        private Lease(int threads) {
+            this.threads = threads;
+        }
+
+        int getThreads() {
+            return threads;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                // the waiting executions must not count this one anymore, when they get the threads
+                executionFinished();
+                permits.release(threads);
+            }
+        }
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.benchmark.TimingReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A machine-readable benchmark report with the durations of the phases of the analysis,
+ * of the rules and of the single files. It is written as JSON and CSV in addition to the text
+ * report of PMD. The reports of several modules can be aggregated.
+ *
+ * <p>The CSV report has the columns <code>type</code> (one of <code>phase</code>, <code>rule</code>,
+ * <code>file</code>), <code>module</code>, <code>name</code>, <code>totalNanos</code>, <code>selfNanos</code>
+ * and <code>count</code>. For phases and rules the count is the number of calls, for files it is the number
+ * of violations.
+ */
+public class BenchmarkReport {
+    private static final Logger LOG = LoggerFactory.getLogger(BenchmarkReport.class);
+
+    public static final String PHASE = "phase";
+
+    public static final String RULE = "rule";
+
+    public static final String FILE = "file";
+
+    private static final String CSV_HEADER = "type,module,name,totalNanos,selfNanos,count";
+
+    /** The fields of a measurement of PMD with the total and self time in nanoseconds and the number of calls. */
+    private static final String[] MEASUREMENT_FIELDS = {"totalTimeNanos", "selfTimeNanos", "callCount"};
+
+    /** The measurement fields per class of measurements, empty if they can't be read. */
+    private static final Map<Class<?>, List<Field>> MEASUREMENT_FIELDS_BY_CLASS = new ConcurrentHashMap<>();
+
+    /**
+     * A single measurement.
+     */
+    public static class Entry {
+        private final String type;
+
+        private final String module;
+
+        private final String name;
+
+        private long totalNanos;
+
+        private long selfNanos;
+
+        private long count;
+
+        Entry(String type, String module, String name, long totalNanos, long selfNanos, long count) {
+            this.type = type;
+            this.module = module;
+            this.name = name;
+            this.totalNanos = totalNanos;
+            this.selfNanos = selfNanos;
+            this.count = count;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the module, empty for the report of a single module
+         */
+        public String getModule() {
+            return module;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        private void add(Entry other) {
+            totalNanos += other.totalNanos;
+            selfNanos += other.selfNanos;
+            count += other.count;
+        }
+    }
+
+    private final List<Entry> entries;
+
+    private BenchmarkReport(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Creates the report of an analysis.
+     *
+     * @param timingReport the timings measured by PMD
+     * @param fileTimings the absolute paths of the files with their duration in nanoseconds
+     * @param violationCounts the absolute paths of the files with their number of violations
+     * @return the report
+     */
+    static BenchmarkReport create(
+            TimingReport timingReport, Map<String, Long> fileTimings, Map<String, Integer> violationCounts) {
+        List<Entry> phases = new ArrayList<>();
+        Map<String, Entry> rules = new LinkedHashMap<>();
+        for (TimedOperationCategory category : TimedOperationCategory.values()) {
+            Entry phase = new Entry(PHASE, "", category.name(), 0, 0, 0);
+            Object unlabeled = timingReport.getUnlabeledMeasurements(category);
+            Entry unlabeledEntry = unlabeled != null ? toEntry(PHASE, category.name(), unlabeled) : null;
+            if (unlabeledEntry != null) {
+                phase.add(unlabeledEntry);
+            }
+            boolean ruleCategory = category == TimedOperationCategory.RULE;
+            Map<String, ?> labeled = timingReport.getLabeledMeasurements(category);
+            for (Map.Entry<String, ?> measurement : labeled.entrySet()) {
+                Entry entry = toEntry(ruleCategory ? RULE : PHASE, measurement.getKey(), measurement.getValue());
+                if (entry == null) {
+                    continue;
+                }
+                phase.add(entry);
+                if (ruleCategory) {
+                    Entry rule = rules.get(entry.getName());
+                    if (rule == null) {
+                        rules.put(entry.getName(), entry);
+                    } else {
+                        rule.add(entry);
+                    }
+                }
+            }
+            if (phase.getCount() > 0 || phase.getTotalNanos() > 0) {
+                phases.add(phase);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(phases);
+        entries.addAll(sortByTotal(new ArrayList<>(rules.values())));
+        List<Entry> files = new ArrayList<>();
+        for (Map.Entry<String, Long> timing : fileTimings.entrySet()) {
+            Integer violations = violationCounts.get(timing.getKey());
+            long nanos = timing.getValue();
+            files.add(new Entry(FILE, "", timing.getKey(), nanos, nanos, violations != null ? violations : 0));
+        }
+        entries.addAll(sortByTotal(files));
+        return new BenchmarkReport(entries);
+    }
+
+    /**
+     * PMD doesn't offer an API to read its measurements, so they are read from the fields. Whether the fields
+     * can be read is detected once per class of measurements. If they can't, e.g. after an upgrade of PMD,
+     * the report only contains the durations of the files.
+     *
+     * @return the entry, or <code>null</code> if the measurement can't be read
+     */
+    static Entry toEntry(String type, String name, Object timedResult) {
+        List<Field> fields = MEASUREMENT_FIELDS_BY_CLASS.computeIfAbsent(
+                timedResult.getClass(), BenchmarkReport::getMeasurementFields);
+        if (fields.isEmpty()) {
+            return null;
+        }
+        try {
+            return new Entry(
+                    type,
+                    "",
+                    name,
+                    ((Number) fields.get(0).get(timedResult)).longValue(),
+                    ((Number) fields.get(1).get(timedResult)).longValue(),
+                    ((Number) fields.get(2).get(timedResult)).longValue());
+        } catch (IllegalAccessException e) {
+            // the fields have been made accessible already
+            return null;
+        }
+    }
+
+    private static List<Field> getMeasurementFields(Class<?> measurementClass) {
+        List<Field> fields = new ArrayList<>();
+        try {
+            for (String fieldName : MEASUREMENT_FIELDS) {
+                Field field = measurementClass.getDeclaredField(fieldName);
+                Class<?> fieldType = field.getType();
+                if (fieldType != long.class && fieldType != int.class && !Number.class.isAssignableFrom(fieldType)) {
+                    throw new NoSuchFieldException(fieldName + " is of type " + fieldType.getName());
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+            return fields;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.warn(
+                    "Unable to read the measurements of PMD from {} ({}), the benchmark reports only contain the"
+                            + " durations of the files",
+                    measurementClass.getName(),
+                    e.toString());
+            return Collections.emptyList();
+        }
+    }
+
+    private static List<Entry> sortByTotal(List<Entry> entries) {
+        entries.sort(Comparator.comparingLong(Entry::getTotalNanos)
+                .reversed()
+                .thenComparing(Entry::getModule)
+                .thenComparing(Entry::getName));
+        return entries;
+    }
+
+    /**
+     * Aggregates the reports of several modules. The phases and rules are summed up, of the files only
+     * the slowest are kept.
+     *
+     * @param reports the modules with their reports
+     * @param slowestFiles the number of files to keep
+     * @return the aggregated report
+     */
+    public static BenchmarkReport aggregate(Map<String, BenchmarkReport> reports, int slowestFiles) {
+        return sum(reports, true, slowestFiles);
+    }
+
+    /**
+     * Merges the reports of the shards of a module. The phases and rules are summed up, all files are kept.
+     *
+     * @param shards the reports of the shards
+     * @return the report of the module
+     */
+    static BenchmarkReport merge(List<BenchmarkReport> shards) {
+        Map<String, BenchmarkReport> reports = new LinkedHashMap<>();
+        for (BenchmarkReport shard : shards) {
+            reports.put("shard-" + reports.size(), shard);
+        }
+        return sum(reports, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param moduleReports whether the keys are the modules of the files, otherwise the files keep their module
+     */
+    private static BenchmarkReport sum(Map<String, BenchmarkReport> reports, boolean moduleReports, int slowestFiles) {
+        Map<String, Entry> phases = new LinkedHashMap<>();
+        Map<String, Entry> rules = new LinkedHashMap<>();
+        List<Entry> files = new ArrayList<>();
+        for (Map.Entry<String, BenchmarkReport> report : reports.entrySet()) {
+            for (Entry entry : report.getValue().getEntries()) {
+                if (FILE.equals(entry.getType())) {
+                    files.add(new Entry(
+                            FILE,
+                            moduleReports ? report.getKey() : entry.getModule(),
+                            entry.getName(),
+                            entry.getTotalNanos(),
+                            entry.getSelfNanos(),
+                            entry.getCount()));
+                } else {
+                    Map<String, Entry> sums = PHASE.equals(entry.getType()) ? phases : rules;
+                    sums.computeIfAbsent(entry.getName(), n -> new Entry(entry.getType(), "", n, 0, 0, 0))
+                            .add(entry);
+                }
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(phases.values());
+        entries.addAll(sortByTotal(new ArrayList<>(rules.values())));
+        sortByTotal(files);
+        entries.addAll(files.subList(0, Math.min(slowestFiles, files.size())));
+        return new BenchmarkReport(entries);
+    }
+
+    /**
+     * Reads a report written by {@link #writeCsv(Writer)}.
+     *
+     * @param csvFile the report
+     * @return the report
+     * @throws IOException if the report can't be read
+     */
+    public static BenchmarkReport readCsv(File csvFile) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csvFile.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!CSV_HEADER.equals(line)) {
+                throw new IOException("Not a benchmark report: " + csvFile);
+            }
+            while ((line = reader.readLine()) != null) {
+                List<String> columns = parseCsvLine(line);
+                if (columns.size() != 6) {
+                    throw new IOException("Invalid line in " + csvFile + ": " + line);
+                }
+                try {
+                    entries.add(new Entry(
+                            columns.get(0),
+                            columns.get(1),
+                            columns.get(2),
+                            Long.parseLong(columns.get(3)),
+                            Long.parseLong(columns.get(4)),
+                            Long.parseLong(columns.get(5))));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid line in " + csvFile + ": " + line, e);
+                }
+            }
+        }
+        return new BenchmarkReport(entries);
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    column.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    /**
+     * Writes the report as CSV.
+     *
+     * @param writer the target
+     * @throws IOException if the report can't be written
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write(CSV_HEADER + "\n");
+        for (Entry entry : entries) {
+            writer.write(entry.getType() + "," + quoteCsv(entry.getModule()) + "," + quoteCsv(entry.getName()) + ","
+                    + entry.getTotalNanos() + "," + entry.getSelfNanos() + "," + entry.getCount() + "\n");
+        }
+    }
+
+    private static String quoteCsv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Writes the report as JSON, an object with the arrays <code>phases</code>, <code>rules</code>
+     * and <code>files</code>.
+     *
+     * @param writer the target
+     * @throws IOException if the report can't be written
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\n");
+        writeJsonArray(writer, PHASE, "phases", "calls");
+        writer.write(",\n");
+        writeJsonArray(writer, RULE, "rules", "calls");
+        writer.write(",\n");
+        writeJsonArray(writer, FILE, "files", "violations");
+        writer.write("\n}\n");
+    }
+
+    private void writeJsonArray(Writer writer, String type, String name, String countName) throws IOException {
+        writer.write("  \"" + name + "\": [");
+        String separator = "\n";
+        for (Entry entry : entries) {
+            if (!type.equals(entry.getType())) {
+                continue;
+            }
+            writer.write(separator);
+            writer.write("    {");
+            if (!entry.getModule().isEmpty()) {
+                writer.write("\"module\": " + quoteJson(entry.getModule()) + ", ");
+            }
+            writer.write("\"name\": " + quoteJson(entry.getName()) + ", \"totalNanos\": " + entry.getTotalNanos());
+            if (!FILE.equals(type)) {
+                writer.write(", \"selfNanos\": " + entry.getSelfNanos());
+            }
+            writer.write(", \"" + countName + "\": " + entry.getCount() + "}");
+            separator = ",\n";
+        }
+        writer.write(separator.equals("\n") ? "]" : "\n  ]");
+    }
+
+    static String quoteJson(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Gets the file for a machine-readable report next to the text report.
+     *
+     * @param textReport the text report, e.g. <code>pmd-benchmark.txt</code>
+     * @param extension the extension of the report, e.g. <code>.json</code>
+     * @return the report file, e.g. <code>pmd-benchmark.json</code>
+     */
+    public static File getReportFile(File textReport, String extension) {
+        String name = textReport.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(textReport.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + extension);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Skips all byte order marks, if the encoding is not UTF-8.
+ *
+ * <p>Note: This seems to be a bug in PMD's XMLRenderer. The BOM is rendered multiple times.
+ * once at the beginning of the file, which is Ok, but also in the middle of the file.
+ * The characters read are compacted in a single pass over the buffer.
+ */
+class BomFilter extends FilterReader {
+    private static final char BOM = '\uFEFF';
+    private final boolean filter;
+
+    BomFilter(String encoding, Reader in) {
+        super(in);
+        filter = !"UTF-8".equalsIgnoreCase(encoding);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = super.read();
+
+        if (!filter) {
+            return c;
+        }
+
+        while (c == BOM) {
+            c = super.read();
+        }
+        return c;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (!filter) {
+            return super.read(cbuf, off, len);
+        }
+
+        int count;
+        do {
+            count = super.read(cbuf, off, len);
+            if (count == -1) {
+                return -1;
+            }
+            int end = off;
+            for (int i = off; i < off + count; i++) {
+                if (cbuf[i] != BOM) {
+                    cbuf[end++] = cbuf[i];
+                }
+            }
+            count = end - off;
+            // a buffer of BOMs only must not be reported as the end of the stream
+        } while (count == 0 && len > 0);
+        return count;
+    }
+}
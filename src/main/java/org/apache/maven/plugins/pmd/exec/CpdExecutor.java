@@ -28,6 +28,7 @@ import java.nio.charset.Charset;
 import java.util.Objects;
 
 import net.sourceforge.pmd.cpd.CPDConfiguration;
+import net.sourceforge.pmd.cpd.CPDListener;
 import net.sourceforge.pmd.cpd.CPDReportRenderer;
 import net.sourceforge.pmd.cpd.CSVRenderer;
 import net.sourceforge.pmd.cpd.CpdAnalysis;
@@ -76,7 +77,7 @@ public class CpdExecutor extends Executor {
             if (exit != 0) {
                 throw new MavenReportException("CpdExecutor exited with exit code " + exit);
             }
-            return new CpdResult(new File(request.getTargetDirectory(), "cpd.xml"), request.getOutputEncoding());
+            return readResult();
         } catch (IOException e) {
             throw new MavenReportException(e.getMessage(), e);
         } catch (InterruptedException e) {
@@ -147,11 +148,32 @@ public class CpdExecutor extends Executor {
         request.getFiles().forEach(f -> cpdConfiguration.addInputPath(f.toPath()));
 
         LOG.debug("Executing CPD...");
-        try (CpdAnalysis cpd = CpdAnalysis.create(cpdConfiguration)) {
+        ProgressReporter progressReporter = ProgressReporter.create(
+                "CPD", request.getFiles().size(), request.getProgressInterval(), request.getProgressEventsFile());
+        try (PhaseEvent event = PhaseEvent.begin(PhaseEvent.ANALYSIS, request.getModule(), request.getGoal());
+                CpdAnalysis cpd = CpdAnalysis.create(cpdConfiguration)) {
+            // addedFile only passes the number of files, so there are no file-level ExecutionListener callbacks
+            if (progressReporter != null) {
+                cpd.setCpdListener(new CPDListener() {
+                    @Override
+                    public void addedFile(int fileCount) {
+                        progressReporter.filesCompleted(fileCount);
+                    }
+
+                    @Override
+                    public void phaseUpdate(int phase) {
+                        progressReporter.setPhase(getPhaseName(phase));
+                    }
+                });
+            }
             CpdReportConsumer reportConsumer = new CpdReportConsumer(request, excludeDuplicationsFromFile);
             cpd.performAnalysis(reportConsumer);
         } catch (IOException e) {
             throw new MavenReportException("Error while executing CPD", e);
+        } finally {
+            if (progressReporter != null) {
+                progressReporter.finish();
+            }
         }
         LOG.debug("CPD finished.");
 
@@ -164,7 +186,29 @@ public class CpdExecutor extends Executor {
             throw new MavenReportException("There were " + cpdErrors + " errors while executing CPD");
         }
 
-        return new CpdResult(new File(request.getTargetDirectory(), "cpd.xml"), request.getOutputEncoding());
+        return readResult();
+    }
+
+    private static String getPhaseName(int phase) {
+        switch (phase) {
+            case CPDListener.INIT:
+                return "tokenizing";
+            case CPDListener.HASH:
+                return "hashing";
+            case CPDListener.MATCH:
+                return "matching";
+            case CPDListener.GROUPING:
+                return "grouping";
+            default:
+                return "done";
+        }
+    }
+
+    private CpdResult readResult() throws MavenReportException {
+        try (PhaseEvent event =
+                PhaseEvent.begin(PhaseEvent.RESULT_PARSING, request.getModule(), request.getGoal())) {
+            return new CpdResult(new File(request.getTargetDirectory(), "cpd.xml"), request.getOutputEncoding());
+        }
     }
 
     /**
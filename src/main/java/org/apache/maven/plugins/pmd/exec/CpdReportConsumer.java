@@ -72,13 +72,15 @@ class CpdReportConsumer implements Consumer<CPDReport> {
     }
 
     private void writeXmlReport(CPDReport cpd) throws IOException {
-        File targetFile = writeReport(cpd, new XMLRenderer(request.getOutputEncoding()), "xml");
-        if (request.isIncludeXmlInReports()) {
-            File outputDirectory = new File(request.getReportOutputDirectory());
-            if (!outputDirectory.exists() && !outputDirectory.mkdirs()) {
-                throw new IOException("Couldn't create report output directory: " + outputDirectory);
+        try (PhaseEvent event = PhaseEvent.begin(PhaseEvent.XML_REPORT, request.getModule(), request.getGoal())) {
+            File targetFile = writeReport(cpd, new XMLRenderer(request.getOutputEncoding()), "xml");
+            if (request.isIncludeXmlInReports()) {
+                File outputDirectory = new File(request.getReportOutputDirectory());
+                if (!outputDirectory.exists() && !outputDirectory.mkdirs()) {
+                    throw new IOException("Couldn't create report output directory: " + outputDirectory);
+                }
+                FileUtils.copyFile(targetFile, new File(outputDirectory, "cpd.xml"));
             }
-            FileUtils.copyFile(targetFile, new File(outputDirectory, "cpd.xml"));
         }
     }
 
@@ -101,10 +103,11 @@ class CpdReportConsumer implements Consumer<CPDReport> {
         try (Writer writer =
                 Files.newBufferedWriter(targetFile.toPath(), Charset.forName(request.getOutputEncoding()))) {
             renderer.render(cpd.filterMatches(filterMatches()), writer);
-            return targetFile;
         } catch (UnsupportedCharsetException | IllegalCharsetNameException ex) {
             throw new UnsupportedEncodingException(ex.getMessage());
         }
+        ExecutionListeners.reportWritten(targetFile);
+        return targetFile;
     }
 
     private Predicate<Match> filterMatches() {
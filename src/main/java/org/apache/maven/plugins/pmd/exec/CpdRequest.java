@@ -39,6 +39,9 @@ public class CpdRequest implements Serializable {
 
     private Map<String, String> jdkToolchain;
 
+    private String module;
+    private String goal;
+
     private int minimumTokens;
     private String language;
     private Properties languageProperties;
@@ -54,11 +57,24 @@ public class CpdRequest implements Serializable {
     private boolean ignoreAnnotations;
     private boolean ignoreIdentifiers;
     private boolean ignoreLiterals;
+    private int progressInterval;
+    private String progressEventsFile;
 
     public void setJdkToolchain(Map<String, String> jdkToolchain) {
         this.jdkToolchain = jdkToolchain;
     }
 
+    /**
+     * Sets the module and goal, which the {@link PhaseEvent}s of the execution are tagged with.
+     *
+     * @param module the module, e.g. the artifactId
+     * @param goal the goal
+     */
+    public void setExecutionContext(String module, String goal) {
+        this.module = module;
+        this.goal = goal;
+    }
+
     public void setMinimumTokens(int minimumTokens) {
         this.minimumTokens = minimumTokens;
     }
@@ -107,6 +123,14 @@ public class CpdRequest implements Serializable {
         return jdkToolchain;
     }
 
+    public String getModule() {
+        return module;
+    }
+
+    public String getGoal() {
+        return goal;
+    }
+
     public int getMinimumTokens() {
         return minimumTokens;
     }
@@ -174,4 +198,23 @@ public class CpdRequest implements Serializable {
     public boolean isIgnoreLiterals() {
         return ignoreLiterals;
     }
+
+    /**
+     * Configures the progress reporting of the analysis.
+     *
+     * @param progressInterval the interval of the progress lines in seconds, <code>0</code> for none
+     * @param progressEventsFile the NDJSON file for the progress events, might be <code>null</code>
+     */
+    public void setProgress(int progressInterval, String progressEventsFile) {
+        this.progressInterval = progressInterval;
+        this.progressEventsFile = progressEventsFile;
+    }
+
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+
+    public String getProgressEventsFile() {
+        return progressEventsFile;
+    }
 }
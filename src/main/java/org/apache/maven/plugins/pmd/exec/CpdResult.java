@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.maven.plugins.pmd.model.CpdErrorDetail;
+import org.apache.maven.plugins.pmd.model.CpdFile;
 import org.apache.maven.plugins.pmd.model.Duplication;
 import org.apache.maven.plugins.pmd.model.io.xpp3.CpdXpp3Reader;
 import org.apache.maven.reporting.MavenReportException;
@@ -48,11 +49,26 @@ public class CpdResult {
         return !duplications.isEmpty();
     }
 
+    /**
+     * Deduplicates the paths of the duplications, which repeat for every duplication of a file.
+     *
+     * @param duplications the duplications read from a report
+     */
+    public static void deduplicateStrings(List<Duplication> duplications) {
+        StringPool pool = new StringPool();
+        for (Duplication duplication : duplications) {
+            for (CpdFile file : duplication.getFiles()) {
+                file.setPath(pool.intern(file.getPath()));
+            }
+        }
+    }
+
     private void loadResult(File report, String encoding) throws MavenReportException {
         try (Reader reader1 = new InputStreamReader(new FileInputStream(report), encoding)) {
             CpdXpp3Reader reader = new CpdXpp3Reader();
             CpdErrorDetail details = reader.read(reader1, false);
             duplications.addAll(details.getDuplications());
+            deduplicateStrings(duplications);
         } catch (Exception e) {
             throw new MavenReportException(e.getMessage(), e);
         }
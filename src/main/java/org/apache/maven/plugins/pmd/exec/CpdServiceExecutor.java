@@ -35,14 +35,18 @@ import org.apache.maven.toolchain.ToolchainManager;
 public class CpdServiceExecutor extends ServiceExecutor {
 
     @Inject
-    public CpdServiceExecutor(ToolchainManager toolchainManager, Provider<MavenSession> sessionProvider) {
-        super(toolchainManager, sessionProvider);
+    public CpdServiceExecutor(
+            ToolchainManager toolchainManager,
+            Provider<MavenSession> sessionProvider,
+            AnalysisThreadBudget threadBudget) {
+        super(toolchainManager, sessionProvider, threadBudget);
     }
 
     public CpdResult execute(CpdRequest request) throws MavenReportException {
 
         ClassLoader origLoader = Thread.currentThread().getContextClassLoader();
-        try {
+        // CPD is single threaded
+        try (AnalysisThreadBudget.Lease threads = acquireThreads(1)) {
             Thread.currentThread().setContextClassLoader(CpdExecutor.class.getClassLoader());
             CpdExecutor executor = new CpdExecutor(request);
 
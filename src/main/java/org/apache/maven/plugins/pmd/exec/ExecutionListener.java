@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+
+/**
+ * Listener for the execution of the plugin, e.g. for custom telemetry. The implementations are
+ * discovered with {@link java.util.ServiceLoader} from the dependencies of the plugin, so they are
+ * registered in <code>META-INF/services/org.apache.maven.plugins.pmd.exec.ExecutionListener</code>
+ * of a jar, which is added to the <code>&lt;dependencies&gt;</code> of the plugin.
+ *
+ * <p>The methods are called from several threads, the implementations must be thread-safe and fast.
+ * If PMD or CPD run in a forked JVM, e.g. because of a toolchain, the callbacks of the analysis are
+ * called in that JVM. Exceptions thrown by a listener are logged and otherwise ignored.
+ *
+ * <p>The file-level callbacks of the analysis, {@link #fileAnalysisStarted(File)},
+ * {@link #fileAnalysisFinished(File, long)} and {@link #violationEmitted(File, String, int, int)}, are only
+ * called by PMD. The listener of CPD only reports the number of tokenized files, but not which ones,
+ * so for CPD only the file discovery, the caches, the reports and the check are reported.
+ *
+ * @since 3.28.1
+ */
+public interface ExecutionListener {
+    /**
+     * The name of the cache of the discovered files, see {@link #cacheHit(String, String)}.
+     */
+    String FILE_SET_CACHE = "fileSet";
+
+    /**
+     * Called for each source file found by the file discovery of a report goal.
+     *
+     * @param file the source file
+     */
+    default void fileDiscovered(File file) {}
+
+    /**
+     * Called when PMD starts to analyze a file. Not called for CPD.
+     *
+     * @param file the source file
+     */
+    default void fileAnalysisStarted(File file) {}
+
+    /**
+     * Called when PMD has analyzed a file. Not called for CPD.
+     *
+     * @param file the source file
+     * @param durationNanos the wall time of the analysis in nanoseconds
+     */
+    default void fileAnalysisFinished(File file, long durationNanos) {}
+
+    /**
+     * Called for each violation found by PMD, before the exclusions are applied.
+     *
+     * @param file the source file
+     * @param rule the name of the rule
+     * @param priority the priority of the violation, 1 (high) to 5 (low)
+     * @param line the line of the violation
+     */
+    default void violationEmitted(File file, String rule, int priority, int line) {}
+
+    /**
+     * Called when a cache of the plugin could answer a lookup.
+     *
+     * @param cache the name of the cache, e.g. {@link #FILE_SET_CACHE}
+     * @param key the key of the lookup
+     */
+    default void cacheHit(String cache, String key) {}
+
+    /**
+     * Called when a cache of the plugin couldn't answer a lookup.
+     *
+     * @param cache the name of the cache, e.g. {@link #FILE_SET_CACHE}
+     * @param key the key of the lookup
+     */
+    default void cacheMiss(String cache, String key) {}
+
+    /**
+     * Called when a report file has been written.
+     *
+     * @param report the report file
+     */
+    default void reportWritten(File report) {}
+
+    /**
+     * Called when a check goal has checked a report.
+     *
+     * @param report the checked report
+     * @param failures the number of violations or duplications, which fail the build
+     * @param warnings the number of other violations or duplications
+     */
+    default void checkCompleted(File report, int failures, int warnings) {}
+}
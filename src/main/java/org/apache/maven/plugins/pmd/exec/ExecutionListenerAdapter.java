@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Forwards the events of a PMD analysis to the {@link ExecutionListeners}. It is only added to the
+ * analysis, if there are listeners.
+ */
+class ExecutionListenerAdapter implements GlobalAnalysisListener {
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile textFile) {
+        final File file = new File(textFile.getFileId().getAbsolutePath());
+        final long start = System.nanoTime();
+        ExecutionListeners.fileAnalysisStarted(file);
+        return new FileAnalysisListener() {
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                ExecutionListeners.violationEmitted(
+                        file,
+                        violation.getRule().getName(),
+                        violation.getRule().getPriority().getPriority(),
+                        violation.getBeginLine());
+            }
+
+            @Override
+            public void close() {
+                ExecutionListeners.fileAnalysisFinished(file, System.nanoTime() - start);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // nothing to do
+    }
+}
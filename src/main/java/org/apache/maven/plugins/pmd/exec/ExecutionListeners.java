@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calls the {@link ExecutionListener}s found on the class path of the plugin. The listeners are
+ * discovered once. Without listeners, the methods only iterate over an empty array, so that the
+ * instrumented paths don't allocate anything; the callers check {@link #isEnabled()} before
+ * preparing anything, which would allocate.
+ *
+ * @since 3.28.1
+ */
+public final class ExecutionListeners {
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionListeners.class);
+
+    private static final ExecutionListener[] LISTENERS = load();
+
+    private ExecutionListeners() {
+        // only static methods
+    }
+
+    private static ExecutionListener[] load() {
+        List<ExecutionListener> listeners = new ArrayList<>();
+        try {
+            for (ExecutionListener listener :
+                    ServiceLoader.load(ExecutionListener.class, ExecutionListener.class.getClassLoader())) {
+                LOG.debug("Using execution listener {}", listener.getClass().getName());
+                listeners.add(listener);
+            }
+        } catch (ServiceConfigurationError e) {
+            LOG.warn("Unable to load the execution listeners: {}", e.getMessage(), e);
+        }
+        return listeners.toArray(new ExecutionListener[0]);
+    }
+
+    /**
+     * @return <code>true</code> if there is at least one listener
+     */
+    public static boolean isEnabled() {
+        return LISTENERS.length > 0;
+    }
+
+    public static void fileDiscovered(File file) {
+        for (ExecutionListener listener : LISTENERS) {
+            try {
+                listener.fileDiscovered(file);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void fileAnalysisStarted(File file) {
+        for (ExecutionListener listener : LISTENERS) {
+            try {
+                listener.fileAnalysisStarted(file);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void fileAnalysisFinished(File file, long durationNanos) {
+        for (ExecutionListener listener : LISTENERS) {
+            try {
+                listener.fileAnalysisFinished(file, durationNanos);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void violationEmitted(File file, String rule, int priority, int line) {
+        for (ExecutionListener listener : LISTENERS) {
+            try {
+                listener.violationEmitted(file, rule, priority, line);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void cacheAccessed(String cache, String key, boolean hit) {
+        for (ExecutionListener listener : LISTENERS) {
+            try {
+                if (hit) {
+                    listener.cacheHit(cache, key);
+                } else {
+                    listener.cacheMiss(cache, key);
+                }
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void reportWritten(File report) {
+        for (ExecutionListener listener : LISTENERS) {
+            try {
+                listener.reportWritten(report);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void checkCompleted(File report, int failures, int warnings) {
+        for (ExecutionListener listener : LISTENERS) {
+            try {
+                listener.checkCompleted(report, failures, warnings);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    private static void failed(ExecutionListener listener, RuntimeException e) {
+        LOG.warn("Execution listener {} failed: {}", listener.getClass().getName(), e.getMessage(), e);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Counts the failures of an analysis, i.e. the violations with a priority up to the failure priority,
+ * which aren't excluded from failures, and triggers once more than the allowed number is found.
+ *
+ * <p>The listener only counts, the results are collected by the analysis, e.g. by a {@link PartialReportBuilder}.
+ * PMD can't cancel an analysis, so once the listener has been triggered, the analysis is given up and the
+ * results collected so far are reported as truncated.
+ */
+class FailFastListener implements GlobalAnalysisListener {
+    private final int failurePriority;
+
+    private final int maxAllowedViolations;
+
+    private final Predicate<RuleViolation> excluded;
+
+    private final AtomicInteger failures;
+
+    private final CountDownLatch triggered = new CountDownLatch(1);
+
+    /**
+     * @param failurePriority the priority up to which violations are failures
+     * @param maxAllowedViolations the number of failures, which doesn't fail the build yet
+     * @param excluded the violations excluded from failures
+     */
+    FailFastListener(int failurePriority, int maxAllowedViolations, Predicate<RuleViolation> excluded) {
+        this(failurePriority, maxAllowedViolations, excluded, new AtomicInteger());
+    }
+
+    private FailFastListener(
+            int failurePriority, int maxAllowedViolations, Predicate<RuleViolation> excluded, AtomicInteger failures) {
+        this.failurePriority = failurePriority;
+        this.maxAllowedViolations = maxAllowedViolations;
+        this.excluded = excluded;
+        this.failures = failures;
+        if (failures.get() > maxAllowedViolations) {
+            triggered.countDown();
+        }
+    }
+
+    /**
+     * Creates the listener for the next analysis, e.g. of the next batch, which continues to count the
+     * failures.
+     *
+     * @return the new listener
+     */
+    FailFastListener forNextAnalysis() {
+        return new FailFastListener(failurePriority, maxAllowedViolations, excluded, failures);
+    }
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        if (isTriggered()) {
+            return FileAnalysisListener.noop();
+        }
+        return new FileAnalysisListener() {
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                if (violation.getRule().getPriority().getPriority() <= failurePriority
+                        && !excluded.test(violation)
+                        && failures.incrementAndGet() > maxAllowedViolations) {
+                    triggered.countDown();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // nothing to do, the results are collected by the analysis
+    }
+
+    /**
+     * @return <code>true</code> if more failures than allowed have been found
+     */
+    boolean isTriggered() {
+        return triggered.getCount() == 0;
+    }
+
+    /**
+     * Waits until more failures than allowed have been found.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return <code>true</code> if the listener has been triggered
+     * @throws InterruptedException if the thread has been interrupted
+     */
+    boolean awaitTrigger(long timeout, TimeUnit unit) throws InterruptedException {
+        return triggered.await(timeout, unit);
+    }
+
+    /**
+     * @return the number of failures found so far
+     */
+    int getFailures() {
+        return failures.get();
+    }
+}
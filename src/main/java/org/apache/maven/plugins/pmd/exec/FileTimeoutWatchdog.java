@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Abandons the analysis of files, that takes longer than a timeout.
+ *
+ * <p>The watchdog collects the results of the analysis itself, instead of PMD. When a file is abandoned,
+ * its results are dropped and a processing error is recorded instead. The thread analyzing the file is
+ * interrupted, but since the rules usually don't react to interrupts, it might keep running. Once all
+ * threads of an analysis are stuck in abandoned files, the files not started yet are analyzed
+ * in a new {@link Round}.
+ */
+class FileTimeoutWatchdog {
+    private static final Logger LOG = LoggerFactory.getLogger(FileTimeoutWatchdog.class);
+
+    private final long timeoutNanos;
+
+    private final Report.GlobalReportBuilderListener reportBuilder = new Report.GlobalReportBuilderListener();
+
+    private final Map<String, FileAnalysis> startedFiles = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param timeout the maximum time for the analysis of one file
+     * @param unit the unit of the timeout
+     */
+    FileTimeoutWatchdog(long timeout, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Starts a new round of the analysis. The listener of the round has to be added to the analysis.
+     *
+     * @return the new round
+     */
+    Round startRound() {
+        return new Round();
+    }
+
+    /**
+     * Abandons all files, whose analysis exceeded the timeout.
+     */
+    void checkTimeouts() {
+        long now = System.nanoTime();
+        for (FileAnalysis analysis : startedFiles.values()) {
+            if (analysis.abandonIfTimedOut(now)) {
+                String path = analysis.file.getFileId().getAbsolutePath();
+                long seconds = TimeUnit.NANOSECONDS.toSeconds(timeoutNanos);
+                LOG.warn("Abandoning the analysis of {}, it took longer than {} seconds", path, seconds);
+                synchronized (this) {
+                    if (closed) {
+                        continue;
+                    }
+                    FileAnalysisListener listener = reportBuilder.startFileAnalysis(analysis.file);
+                    listener.onError(new Report.ProcessingError(
+                            new TimeoutException(
+                                    "The analysis took longer than " + seconds + " seconds and was abandoned"),
+                            analysis.file.getFileId()));
+                    closeQuietly(listener, path);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if there are files being analyzed, that haven't been abandoned
+     */
+    boolean hasActiveFiles() {
+        for (FileAnalysis analysis : startedFiles.values()) {
+            if (analysis.isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param files the files
+     * @return the files, whose analysis hasn't been started yet
+     */
+    List<File> getUnstartedFiles(List<File> files) {
+        List<File> unstarted = new ArrayList<>();
+        for (File file : files) {
+            if (!startedFiles.containsKey(file.getAbsolutePath())) {
+                unstarted.add(file);
+            }
+        }
+        return unstarted;
+    }
+
+    /**
+     * Finishes the analysis. Results of abandoned files, that are still running, are ignored, as well as
+     * the results of files finishing afterwards, e.g. when the analysis is given up by <code>failFast</code>.
+     *
+     * @return the collected results
+     */
+    synchronized Report getReport() {
+        if (!closed) {
+            closed = true;
+            reportBuilder.close();
+        }
+        return reportBuilder.getResult();
+    }
+
+    private static void closeQuietly(FileAnalysisListener listener, String path) {
+        try {
+            listener.close();
+        } catch (Exception e) {
+            LOG.warn("Unable to collect the results of {}", path, e);
+        }
+    }
+
+    private void addResults(TextFile file, Report results) {
+        try {
+            PartialReportBuilder.addResults(reportBuilder, file, results);
+        } catch (Exception e) {
+            LOG.warn("Unable to collect the results of {}", file.getFileId().getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * The listener for one analysis. Files, that have already been started by a previous round,
+     * which got stuck, are skipped.
+     */
+    class Round implements GlobalAnalysisListener {
+        private final List<FileAnalysis> files = new CopyOnWriteArrayList<>();
+
+        @Override
+        public FileAnalysisListener startFileAnalysis(TextFile file) {
+            // the interrupt of a previously abandoned file must not affect this file
+            Thread.interrupted();
+            if (closed) {
+                return FileAnalysisListener.noop();
+            }
+            FileAnalysis analysis = new FileAnalysis(file);
+            if (startedFiles.putIfAbsent(file.getFileId().getAbsolutePath(), analysis) != null) {
+                return FileAnalysisListener.noop();
+            }
+            files.add(analysis);
+            return analysis;
+        }
+
+        @Override
+        public void onConfigError(Report.ConfigurationError error) {
+            reportBuilder.onConfigError(error);
+        }
+
+        @Override
+        public void close() {
+            // the results are collected by the watchdog
+        }
+
+        /**
+         * @param threads the number of threads of the analysis
+         * @return <code>true</code> if all threads of this round are stuck in abandoned files
+         */
+        boolean isStalled(int threads) {
+            int stuck = 0;
+            for (FileAnalysis analysis : files) {
+                if (analysis.isActive()) {
+                    return false;
+                }
+                if (analysis.isStuck()) {
+                    stuck++;
+                }
+            }
+            return stuck >= Math.max(1, threads);
+        }
+    }
+
+    /**
+     * The analysis of one file. The results are buffered and passed on, when the file is finished
+     * without being abandoned. PMD's report builder would write them into the shared report right away.
+     */
+    private class FileAnalysis implements FileAnalysisListener {
+        private final TextFile file;
+
+        private final Report.ReportBuilderListener results = new Report.ReportBuilderListener();
+
+        private final Thread thread = Thread.currentThread();
+
+        private final long start = System.nanoTime();
+
+        private boolean finished;
+
+        private boolean abandoned;
+
+        FileAnalysis(TextFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public synchronized void onRuleViolation(RuleViolation violation) {
+            if (!abandoned) {
+                results.onRuleViolation(violation);
+            }
+        }
+
+        @Override
+        public synchronized void onSuppressedRuleViolation(Report.SuppressedViolation violation) {
+            if (!abandoned) {
+                results.onSuppressedRuleViolation(violation);
+            }
+        }
+
+        @Override
+        public synchronized void onError(Report.ProcessingError error) {
+            if (!abandoned) {
+                results.onError(error);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            finished = true;
+            synchronized (FileTimeoutWatchdog.this) {
+                if (!abandoned && !closed) {
+                    results.close();
+                    addResults(file, results.getResult());
+                }
+            }
+        }
+
+        synchronized boolean abandonIfTimedOut(long now) {
+            if (finished || abandoned || now - start < timeoutNanos) {
+                return false;
+            }
+            abandoned = true;
+            thread.interrupt();
+            return true;
+        }
+
+        synchronized boolean isActive() {
+            return !finished && !abandoned;
+        }
+
+        synchronized boolean isStuck() {
+            return !finished && abandoned;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Measures how long the analysis of each file takes and counts its violations.
+ */
+class FileTimingListener implements GlobalAnalysisListener {
+    private final Map<String, Long> timings = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> violationCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        final String path = file.getFileId().getAbsolutePath();
+        final long start = System.nanoTime();
+        return new FileAnalysisListener() {
+            private int violations;
+
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                violations++;
+            }
+
+            @Override
+            public void close() {
+                timings.put(path, System.nanoTime() - start);
+                violationCounts.put(path, violations);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // nothing to do
+    }
+
+    /**
+     * @return the absolute paths of the analyzed files with the duration of their analysis in nanoseconds
+     */
+    Map<String, Long> getTimings() {
+        return timings;
+    }
+
+    /**
+     * @return the absolute paths of the analyzed files with their number of violations
+     */
+    Map<String, Integer> getViolationCounts() {
+        return violationCounts;
+    }
+}
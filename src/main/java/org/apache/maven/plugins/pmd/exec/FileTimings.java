@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The durations of the analysis of the single files, as measured by the previous run.
+ * They are used to estimate the cost of analyzing a file, so that the most expensive files
+ * can be started first.
+ *
+ * <p>The timings are stored as a text file, each line contains the duration in nanoseconds
+ * and the absolute path of the file, separated by a tab.
+ */
+class FileTimings {
+    private final Map<String, Long> timings = new HashMap<>();
+
+    /**
+     * Loads the timings of the previous run.
+     *
+     * @param timingsFile the file, might not exist
+     * @return the timings, empty if the file doesn't exist or can't be read
+     */
+    static FileTimings load(File timingsFile) {
+        FileTimings result = new FileTimings();
+        if (!timingsFile.isFile()) {
+            return result;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(timingsFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    try {
+                        result.timings.put(line.substring(tab + 1), Long.parseLong(line.substring(0, tab)));
+                    } catch (NumberFormatException e) {
+                        // ignore broken line
+                    }
+                }
+            }
+        } catch (IOException e) {
+            result.timings.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Stores the timings.
+     *
+     * @param timingsFile the target file
+     * @throws IOException if the file can't be written
+     */
+    void save(File timingsFile) throws IOException {
+        File parent = timingsFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Couldn't create directory: " + parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(timingsFile.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> timing : new TreeMap<>(timings).entrySet()) {
+                writer.write(timing.getValue() + "\t" + timing.getKey() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Merges the durations measured by the current run.
+     *
+     * @param measured the absolute file paths with the measured duration in nanoseconds
+     * @param keepMaximum if <code>true</code>, the larger of the previous and the new duration is kept.
+     *     This is needed if the analysis cache is in use, as files taken from the cache are analyzed
+     *     much faster than they would be after a change.
+     */
+    void update(Map<String, Long> measured, boolean keepMaximum) {
+        for (Map.Entry<String, Long> timing : measured.entrySet()) {
+            Long previous = timings.get(timing.getKey());
+            if (keepMaximum && previous != null && previous > timing.getValue()) {
+                continue;
+            }
+            timings.put(timing.getKey(), timing.getValue());
+        }
+    }
+
+    /**
+     * Estimates the analysis costs of the given files. Files with a previous timing use that,
+     * for all other files the cost is derived from their size.
+     *
+     * @param files the files
+     * @return the files with their estimated cost, the most expensive first
+     */
+    Map<File, Long> estimateCosts(Collection<File> files) {
+        Map<File, Long> sizes = new HashMap<>();
+        long knownNanos = 0;
+        long knownBytes = 0;
+        for (File file : files) {
+            long size = file.length();
+            sizes.put(file, size);
+            Long timing = timings.get(file.getAbsolutePath());
+            if (timing != null) {
+                knownNanos += timing;
+                knownBytes += size;
+            }
+        }
+        double nanosPerByte = knownNanos > 0 && knownBytes > 0 ? (double) knownNanos / knownBytes : 1.0;
+
+        List<Map.Entry<File, Long>> costs = new ArrayList<>(files.size());
+        for (File file : files) {
+            Long timing = timings.get(file.getAbsolutePath());
+            long cost = timing != null ? timing : (long) (sizes.get(file) * nanosPerByte);
+            costs.add(new AbstractMap.SimpleImmutableEntry<>(file, cost));
+        }
+        costs.sort(Map.Entry.<File, Long>comparingByValue().reversed());
+
+        Map<File, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<File, Long> cost : costs) {
+            result.put(cost.getKey(), cost.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Selects the files, which are so expensive, that they would delay the end of the analysis,
+     * if they were started late.
+     *
+     * @param costs the estimated costs, the most expensive first
+     * @param threads the number of threads used for the analysis
+     * @return at most half as many files as there are threads
+     */
+    static List<File> selectMostExpensive(Map<File, Long> costs, int threads) {
+        List<File> result = new ArrayList<>();
+        if (threads <= 1 || costs.size() <= threads) {
+            return result;
+        }
+        long total = 0;
+        for (long cost : costs.values()) {
+            total += cost;
+        }
+        // a file taking more than a quarter of what each thread has to do on average
+        long threshold = total / (threads * 4L);
+        for (Map.Entry<File, Long> cost : costs.entrySet()) {
+            if (result.size() >= threads / 2 || cost.getValue() <= threshold) {
+                break;
+            }
+            result.add(cost.getKey());
+        }
+        return result;
+    }
+}
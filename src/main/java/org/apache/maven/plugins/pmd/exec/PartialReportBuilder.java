@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Collects the results of an analysis like PMD's own report builder, but the report can be taken
+ * while the analysis is still running, e.g. when it is given up by <code>failFast</code>.
+ * The results of files, which finish afterwards, are dropped.
+ */
+class PartialReportBuilder implements GlobalAnalysisListener {
+    private final Report.GlobalReportBuilderListener reportBuilder = new Report.GlobalReportBuilderListener();
+
+    private Report report;
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        // PMD's report builder writes into the shared report right away, so the results of a file are
+        // buffered until the file is finished
+        Report.ReportBuilderListener results = new Report.ReportBuilderListener();
+        return new FileAnalysisListener() {
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                results.onRuleViolation(violation);
+            }
+
+            @Override
+            public void onSuppressedRuleViolation(Report.SuppressedViolation violation) {
+                results.onSuppressedRuleViolation(violation);
+            }
+
+            @Override
+            public void onError(Report.ProcessingError error) {
+                results.onError(error);
+            }
+
+            @Override
+            public void close() throws Exception {
+                results.close();
+                synchronized (PartialReportBuilder.this) {
+                    // the results of files finishing after the report has been taken are dropped
+                    if (report == null) {
+                        addResults(reportBuilder, file, results.getResult());
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Passes the buffered results of a file on.
+     *
+     * @param target the listener to receive the results
+     * @param file the file
+     * @param results the results of the file
+     * @throws Exception if the results can't be passed on
+     */
+    static void addResults(GlobalAnalysisListener target, TextFile file, Report results) throws Exception {
+        try (FileAnalysisListener listener = target.startFileAnalysis(file)) {
+            for (RuleViolation violation : results.getViolations()) {
+                listener.onRuleViolation(violation);
+            }
+            for (Report.SuppressedViolation violation : results.getSuppressedViolations()) {
+                listener.onSuppressedRuleViolation(violation);
+            }
+            for (Report.ProcessingError error : results.getProcessingErrors()) {
+                listener.onError(error);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onConfigError(Report.ConfigurationError error) {
+        if (report == null) {
+            reportBuilder.onConfigError(error);
+        }
+    }
+
+    @Override
+    public void close() {
+        // the results are taken with getReport()
+    }
+
+    /**
+     * Finishes the collection of the results. Files, which are still analyzed, are ignored.
+     *
+     * @return the results collected up to now
+     */
+    synchronized Report getReport() {
+        if (report == null) {
+            reportBuilder.close();
+            report = reportBuilder.getResult();
+        }
+        return report;
+    }
+}
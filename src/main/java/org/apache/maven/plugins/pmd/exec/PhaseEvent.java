@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A JDK Flight Recorder event for a phase of the plugin, e.g. the file discovery or the analysis,
+ * tagged with the module and the goal. Start the build with <code>-XX:StartFlightRecording</code>
+ * to record the events as <code>org.apache.maven.plugins.pmd.Phase</code>.
+ *
+ * <p>The plugin runs on Java 8, where JFR isn't available as API, so the event type is created
+ * at runtime with <code>jdk.jfr.EventFactory</code> (Java 9+). Without it, the events do nothing.
+ *
+ * <pre>
+ * try (PhaseEvent event = PhaseEvent.begin(PhaseEvent.ANALYSIS, module, goal)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class PhaseEvent implements AutoCloseable {
+    public static final String FILE_DISCOVERY = "file discovery";
+
+    public static final String RULESET_RESOLUTION = "ruleset resolution";
+
+    public static final String DEPENDENCY_RESOLUTION = "dependency resolution";
+
+    public static final String ANALYSIS = "analysis";
+
+    public static final String XML_REPORT = "XML report";
+
+    public static final String RESULT_PARSING = "result parsing";
+
+    public static final String RENDERING = "rendering";
+
+    private static final PhaseEvent DISABLED = new PhaseEvent(null, null, null);
+
+    private static final Object FACTORY;
+
+    private static final Method NEW_EVENT;
+
+    private static final Method IS_ENABLED;
+
+    private static final Method SET;
+
+    private static final Method BEGIN;
+
+    private static final Method END;
+
+    private static final Method COMMIT;
+
+    static {
+        Object factory = null;
+        Method newEvent = null;
+        Method isEnabled = null;
+        Method set = null;
+        Method begin = null;
+        Method end = null;
+        Method commit = null;
+        try {
+            ClassLoader loader = ClassLoader.getSystemClassLoader();
+            Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement", true, loader);
+            Constructor<?> newAnnotation = annotationElement.getConstructor(Class.class, Object.class);
+            Object category = Array.newInstance(String.class, 2);
+            Array.set(category, 0, "Maven");
+            Array.set(category, 1, "PMD Plugin");
+            List<Object> annotations = Arrays.asList(
+                    newAnnotation.newInstance(
+                            Class.forName("jdk.jfr.Name", true, loader), "org.apache.maven.plugins.pmd.Phase"),
+                    newAnnotation.newInstance(Class.forName("jdk.jfr.Label", true, loader), "PMD Plugin Phase"),
+                    newAnnotation.newInstance(Class.forName("jdk.jfr.Category", true, loader), category));
+
+            Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor", true, loader);
+            Constructor<?> newValue = valueDescriptor.getConstructor(Class.class, String.class);
+            List<Object> fields = Arrays.asList(
+                    newValue.newInstance(String.class, "phase"),
+                    newValue.newInstance(String.class, "module"),
+                    newValue.newInstance(String.class, "goal"));
+
+            Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory", true, loader);
+            Object created =
+                    eventFactory.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+            Class<?> event = Class.forName("jdk.jfr.Event", true, loader);
+            newEvent = eventFactory.getMethod("newEvent");
+            isEnabled = event.getMethod("isEnabled");
+            set = event.getMethod("set", int.class, Object.class);
+            begin = event.getMethod("begin");
+            end = event.getMethod("end");
+            commit = event.getMethod("commit");
+            factory = created;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // no JFR, e.g. on Java 8
+        }
+        FACTORY = factory;
+        NEW_EVENT = newEvent;
+        IS_ENABLED = isEnabled;
+        SET = set;
+        BEGIN = begin;
+        END = end;
+        COMMIT = commit;
+    }
+
+    private final Object event;
+
+    private final String phase;
+
+    private final Map<String, Long> durations;
+
+    private final long start = System.nanoTime();
+
+    private PhaseEvent(Object event, String phase, Map<String, Long> durations) {
+        this.event = event;
+        this.phase = phase;
+        this.durations = durations;
+    }
+
+    /**
+     * Begins the event for a phase. The event is recorded when it is closed.
+     *
+     * @param phase the phase, one of the constants of this class
+     * @param module the module, e.g. the artifactId
+     * @param goal the goal
+     * @return the event
+     */
+    public static PhaseEvent begin(String phase, String module, String goal) {
+        return begin(phase, module, goal, null);
+    }
+
+    /**
+     * Begins the event for a phase and additionally measures its duration.
+     *
+     * @param phase the phase, one of the constants of this class
+     * @param module the module, e.g. the artifactId
+     * @param goal the goal
+     * @param durations the phases with their durations in nanoseconds, the duration of this phase is added
+     *     when the event is closed. Might be <code>null</code>.
+     * @return the event
+     */
+    public static PhaseEvent begin(String phase, String module, String goal, Map<String, Long> durations) {
+        Object event = newEvent(phase, module, goal);
+        if (event == null && durations == null) {
+            return DISABLED;
+        }
+        return new PhaseEvent(event, phase, durations);
+    }
+
+    private static Object newEvent(String phase, String module, String goal) {
+        if (FACTORY == null) {
+            return null;
+        }
+        try {
+            Object event = NEW_EVENT.invoke(FACTORY);
+            if (!(Boolean) IS_ENABLED.invoke(event)) {
+                return null;
+            }
+            SET.invoke(event, 0, phase);
+            SET.invoke(event, 1, module);
+            SET.invoke(event, 2, goal);
+            BEGIN.invoke(event);
+            return event;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (durations != null) {
+            durations.merge(phase, System.nanoTime() - start, Long::sum);
+        }
+        if (event == null) {
+            return;
+        }
+        try {
+            END.invoke(event);
+            COMMIT.invoke(event);
+        } catch (ReflectiveOperationException e) {
+            // the event is lost
+        }
+    }
+}
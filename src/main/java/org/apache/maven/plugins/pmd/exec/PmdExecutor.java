@@ -18,6 +18,8 @@
  */
 package org.apache.maven.plugins.pmd.exec;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
@@ -30,11 +32,19 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.PmdAnalysis;
@@ -50,6 +60,7 @@ import net.sourceforge.pmd.renderers.HTMLRenderer;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.renderers.TextRenderer;
 import net.sourceforge.pmd.renderers.XMLRenderer;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
 import net.sourceforge.pmd.reporting.Report;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.pmd.ExcludeViolationsFromFile;
@@ -64,7 +75,159 @@ import org.slf4j.LoggerFactory;
 public class PmdExecutor extends Executor {
     private static final Logger LOG = LoggerFactory.getLogger(PmdExecutor.class);
 
+    /**
+     * Rough estimate of the heap needed for the analysis of one byte of source code.
+     */
+    private static final int HEAP_BYTES_PER_SOURCE_BYTE = 64;
+
+    /**
+     * How long to wait for the files still analyzed by abandoned analyses, before the class loader
+     * of the aux classpath is closed.
+     */
+    private static final long ABANDONED_FILES_TIMEOUT_SECONDS = 10;
+
+    /**
+     * The comment appended to the XML report, if the analysis has been stopped early by <code>failFast</code>.
+     */
+    public static final String TRUNCATED_MARKER =
+            "<!-- truncated: the analysis was stopped after exceeding maxAllowedViolations (failFast) -->";
+
     public PmdResult fork(String javaExecutable) throws MavenReportException {
+        Process process = startFork(javaExecutable, request);
+        waitForFork(process);
+        return readResult(new File(request.getTargetDirectory(), "pmd.xml"));
+    }
+
+    /**
+     * Splits the files into shards and analyzes them in parallel, each shard in its own JVM.
+     * The XML reports of the shards are merged into one. Other report formats are not supported.
+     * The JSON and CSV benchmark reports of the shards are merged as well, the text reports of PMD stay
+     * in the directories of the shards.
+     *
+     * @param javaExecutable the java executable to use for the forked JVMs
+     * @return the merged result
+     * @throws MavenReportException if a shard failed
+     */
+    public PmdResult forkShards(String javaExecutable) throws MavenReportException {
+        List<List<File>> shards = createShards(request.getFiles(), request.getShards());
+        String format = request.getFormat();
+        if (!"html".equals(format) && !"xml".equals(format)) {
+            LOG.warn(
+                    "The format {} is not supported when analyzing in shards, only the XML report is written",
+                    format);
+        }
+        LOG.debug("Analyzing {} files in {} shards", request.getFiles().size(), shards.size());
+
+        File basePmdDir = new File(request.getTargetDirectory(), "pmd");
+        List<Process> processes = new ArrayList<>(shards.size());
+        List<File> shardReports = new ArrayList<>(shards.size());
+        List<File> shardBenchmarks = new ArrayList<>(shards.size());
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                PmdRequest shardRequest = createShardRequest(i, shards.size(), shards.get(i));
+                shardReports.add(new File(shardRequest.getTargetDirectory(), "pmd.xml"));
+                if (shardRequest.getBenchmarkOutputLocation() != null) {
+                    shardBenchmarks.add(new File(shardRequest.getBenchmarkOutputLocation()));
+                }
+                processes.add(startFork(javaExecutable, shardRequest));
+            }
+            for (Process process : processes) {
+                waitForFork(process);
+            }
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+
+        File targetFile = new File(request.getTargetDirectory(), "pmd.xml");
+        try {
+            new XmlReportMerger(XmlReportMerger.PMD_ELEMENTS)
+                    .merge(shardReports, targetFile, request.getOutputEncoding());
+            copyXmlReport(targetFile);
+        } catch (IOException e) {
+            throw new MavenReportException("Failed to merge the XML reports of the shards", e);
+        }
+        if (!shardBenchmarks.isEmpty()) {
+            mergeBenchmarkReports(shardBenchmarks, new File(request.getBenchmarkOutputLocation()));
+        }
+        LOG.debug("Merged the reports of the shards from {}", basePmdDir);
+        return readResult(targetFile);
+    }
+
+    private PmdRequest createShardRequest(int shard, int shardCount, List<File> files) throws MavenReportException {
+        PmdRequest shardRequest;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(request);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                shardRequest = (PmdRequest) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new MavenReportException("Unable to create the request for shard " + shard, e);
+        }
+
+        String suffix = "shard-" + shard;
+        shardRequest.setFiles(files);
+        shardRequest.setShards(0);
+        shardRequest.setThreads(Math.max(1, request.getThreads() / shardCount));
+        File shardDirectory = new File(new File(request.getTargetDirectory(), "pmd"), suffix);
+        shardRequest.setTargetDirectory(shardDirectory.getAbsolutePath());
+        shardRequest.setFormat("xml");
+        shardRequest.setIncludeXmlInReports(false);
+        if (request.getAnalysisCacheLocation() != null) {
+            shardRequest.setAnalysisCacheLocation(request.getAnalysisCacheLocation() + "." + suffix);
+        }
+        if (request.getBenchmarkOutputLocation() != null) {
+            // in the directory of the shard, the JSON and CSV reports would overwrite each other otherwise
+            String name = new File(request.getBenchmarkOutputLocation()).getName();
+            shardRequest.setBenchmarkOutputLocation(new File(shardDirectory, name).getAbsolutePath());
+        }
+        if (request.getProgressEventsFile() != null) {
+            shardRequest.setProgress(request.getProgressInterval(), request.getProgressEventsFile() + "." + suffix);
+        }
+        return shardRequest;
+    }
+
+    /**
+     * Splits the files into shards of about the same size. The files of a directory, which are
+     * the classes of the same package, stay together, so that they share the type resolution in one JVM.
+     *
+     * @param files the files
+     * @param count the number of shards
+     * @return at most <code>count</code> shards, none of them is empty
+     */
+    static List<List<File>> createShards(List<File> files, int count) {
+        Map<File, List<File>> directories = new TreeMap<>();
+        long totalBytes = 0;
+        for (File file : files) {
+            directories.computeIfAbsent(file.getParentFile(), d -> new ArrayList<>()).add(file);
+            totalBytes += file.length();
+        }
+
+        List<List<File>> shards = new ArrayList<>();
+        List<File> shard = new ArrayList<>();
+        long bytes = 0;
+        for (List<File> directory : directories.values()) {
+            for (File file : directory) {
+                shard.add(file);
+                bytes += file.length();
+            }
+            // the shard is complete, when it reaches its share of the total size
+            if (shards.size() < count - 1 && bytes * count >= totalBytes * (shards.size() + 1)) {
+                shards.add(shard);
+                shard = new ArrayList<>();
+            }
+        }
+        if (!shard.isEmpty()) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    private static Process startFork(String javaExecutable, PmdRequest request) throws MavenReportException {
         File basePmdDir = new File(request.getTargetDirectory(), "pmd");
         basePmdDir.mkdirs();
         File pmdRequestFile = new File(basePmdDir, "pmdrequest.bin");
@@ -89,14 +252,19 @@ public class PmdExecutor extends Executor {
             // and inheritIO would only inherit file handles, not the changed streams.
             ProcessStreamHandler.start(p.getInputStream(), System.out);
             ProcessStreamHandler.start(p.getErrorStream(), System.err);
+            return p;
+        } catch (IOException e) {
+            throw new MavenReportException(e.getMessage(), e);
+        }
+    }
+
+    private static void waitForFork(Process p) throws MavenReportException {
+        try {
             int exit = p.waitFor();
             LOG.debug("PmdExecutor exit code: {}", exit);
             if (exit != 0) {
                 throw new MavenReportException("PmdExecutor exited with exit code " + exit);
             }
-            return new PmdResult(new File(request.getTargetDirectory(), "pmd.xml"), request.getOutputEncoding());
-        } catch (IOException e) {
-            throw new MavenReportException(e.getMessage(), e);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new MavenReportException(e.getMessage(), e);
@@ -129,48 +297,23 @@ public class PmdExecutor extends Executor {
 
     private final PmdRequest request;
 
-    public PmdExecutor(PmdRequest request) {
-        this.request = Objects.requireNonNull(request);
-    }
+    /**
+     * Measures the files for the benchmark report, <code>null</code> if no benchmark is requested.
+     */
+    private FileTimingListener benchmarkListener;
 
-    public PmdResult run() throws MavenReportException {
-        PMDConfiguration configuration = new PMDConfiguration();
-        LanguageVersion languageVersion = null;
-        Language language = configuration
-                .getLanguageRegistry()
-                .getLanguageById(request.getLanguage() != null ? request.getLanguage() : "java");
-        if (language == null) {
-            throw new MavenReportException("Unsupported language: " + request.getLanguage());
-        }
-        if (request.getLanguageVersion() != null) {
-            languageVersion = language.getVersion(request.getLanguageVersion());
-            if (languageVersion == null) {
-                throw new MavenReportException("Unsupported targetJdk value '" + request.getLanguageVersion() + "'.");
-            }
-        } else {
-            languageVersion = language.getDefaultVersion();
-        }
-        LOG.debug("Using language " + languageVersion);
-        configuration.setDefaultLanguageVersion(languageVersion);
+    private FailFastListener failFastListener;
 
-        if (request.getSourceEncoding() != null) {
-            configuration.setSourceEncoding(Charset.forName(request.getSourceEncoding()));
-        }
+    private ProgressReporter progressReporter;
 
-        configuration.prependAuxClasspath(request.getAuxClasspath());
+    private final RunningFilesListener runningFiles = new RunningFilesListener();
 
-        if (request.getSuppressMarker() != null) {
-            configuration.setSuppressMarker(request.getSuppressMarker());
-        }
-        if (request.getAnalysisCacheLocation() != null) {
-            configuration.setAnalysisCacheLocation(request.getAnalysisCacheLocation());
-            LOG.debug("Using analysis cache location: " + request.getAnalysisCacheLocation());
-        } else {
-            configuration.setIgnoreIncrementalAnalysis(true);
-        }
+    public PmdExecutor(PmdRequest request) {
+        this.request = Objects.requireNonNull(request);
+    }
 
-        configuration.setRuleSets(request.getRulesets());
-        configuration.setMinimumPriority(RulePriority.valueOf(request.getMinimumPriority()));
+    public PmdResult run() throws MavenReportException {
+        PMDConfiguration configuration = createConfiguration(null);
         if (request.getBenchmarkOutputLocation() != null) {
             TimeTracker.startGlobalTracking();
         }
@@ -183,12 +326,30 @@ public class PmdExecutor extends Executor {
         } else {
             if (request.getBenchmarkOutputLocation() != null) {
                 TimeTracker.startGlobalTracking();
+                benchmarkListener = new FileTimingListener();
             }
 
+            if (request.isFailFast()) {
+                ExcludeViolationsFromFile excludeFromFile = loadExclusions();
+                failFastListener = new FailFastListener(
+                        request.getFailurePriority(),
+                        request.getMaxAllowedViolations(),
+                        excludeFromFile::isExcludedFromFailure);
+            }
+
+            File timingsFile = new File(request.getTargetDirectory(), "pmd/pmd-file-timings.txt");
+            FileTimings timings = request.isLargestFilesFirst() ? FileTimings.load(timingsFile) : null;
+            progressReporter = ProgressReporter.create(
+                    "PMD", files.size(), request.getProgressInterval(), request.getProgressEventsFile());
             try {
-                report = processFilesWithPMD(configuration, files);
+                if (request.getBatchMemoryBudget() > 0) {
+                    processFilesInBatches(configuration, files, timings);
+                    markTruncatedReport();
+                    return readResult(new File(request.getTargetDirectory(), "pmd.xml"));
+                }
+                report = processFilesWithPMD(configuration, files, timings, request.getAnalysisCacheLocation());
             } finally {
-                if (request.getAuxClasspath() != null) {
+                if (request.getAuxClasspath() != null && awaitAbandonedFiles()) {
                     ClassLoader classLoader = configuration.getClassLoader();
                     if (classLoader instanceof Closeable) {
                         Closeable closeable = (Closeable) classLoader;
@@ -204,24 +365,21 @@ public class PmdExecutor extends Executor {
                     writeBenchmarkReport(
                             timingReport, request.getBenchmarkOutputLocation(), request.getOutputEncoding());
                 }
+                if (progressReporter != null) {
+                    progressReporter.finish();
+                }
+                if (timings != null) {
+                    try {
+                        timings.save(timingsFile);
+                    } catch (IOException e) {
+                        LOG.warn("Unable to store the file timings: {}", timingsFile, e);
+                    }
+                }
             }
         }
 
-        if (report != null && !report.getProcessingErrors().isEmpty()) {
-            List<Report.ProcessingError> errors = report.getProcessingErrors();
-            if (!request.isSkipPmdError()) {
-                LOG.error("PMD processing errors:");
-                LOG.error(getErrorsAsString(errors, request.isDebugEnabled()));
-                String msg = errors.size() > 1
-                        ? "Found " + errors.size() + " PMD processing errors"
-                        : "Found 1 PMD processing error";
-                throw new MavenReportException(msg);
-            }
-            String message = errors.size() > 1
-                    ? "There are " + errors.size() + " PMD processing errors:"
-                    : "There is 1 PMD processing error:";
-            LOG.warn(message);
-            LOG.warn(getErrorsAsString(errors, request.isDebugEnabled()));
+        if (report != null) {
+            reportProcessingErrors(report.getProcessingErrors());
         }
 
         report = removeExcludedViolations(report);
@@ -233,6 +391,7 @@ public class PmdExecutor extends Executor {
         } catch (IOException e) {
             throw new MavenReportException("Failed to write XML report", e);
         }
+        markTruncatedReport();
 
         // write any other format except for xml and html. xml has just been produced.
         // html format is produced by the maven site formatter. Excluding html here
@@ -247,45 +406,210 @@ public class PmdExecutor extends Executor {
             }
         }
 
-        return new PmdResult(new File(request.getTargetDirectory(), "pmd.xml"), request.getOutputEncoding());
+        return readResult(new File(request.getTargetDirectory(), "pmd.xml"));
+    }
+
+    /**
+     * Waits a bit for the files, which are still analyzed by threads of an analysis, that has been given up
+     * by <code>failFast</code> or the file timeout. Their rules might still need the aux classpath.
+     *
+     * @return <code>true</code> if no file is being analyzed anymore
+     */
+    private boolean awaitAbandonedFiles() {
+        int running;
+        try {
+            running = runningFiles.awaitIdle(ABANDONED_FILES_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (running > 0) {
+            LOG.warn(
+                    "{} abandoned analysis threads are still running after {} seconds, they will continue"
+                            + " in the background and the class loader of the aux classpath is left open",
+                    running,
+                    ABANDONED_FILES_TIMEOUT_SECONDS);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates the PMD configuration for the request.
+     *
+     * @param classLoader the class loader for the type resolution. If <code>null</code>, a new class loader
+     *     for the aux classpath of the request is created
+     * @return the configuration
+     */
+    private PMDConfiguration createConfiguration(ClassLoader classLoader) throws MavenReportException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        LanguageVersion languageVersion = null;
+        Language language = configuration
+                .getLanguageRegistry()
+                .getLanguageById(request.getLanguage() != null ? request.getLanguage() : "java");
+        if (language == null) {
+            throw new MavenReportException("Unsupported language: " + request.getLanguage());
+        }
+        if (request.getLanguageVersion() != null) {
+            languageVersion = language.getVersion(request.getLanguageVersion());
+            if (languageVersion == null) {
+                throw new MavenReportException("Unsupported targetJdk value '" + request.getLanguageVersion() + "'.");
+            }
+        } else {
+            languageVersion = language.getDefaultVersion();
+        }
+        LOG.debug("Using language " + languageVersion);
+        configuration.setDefaultLanguageVersion(languageVersion);
+
+        if (request.getSourceEncoding() != null) {
+            configuration.setSourceEncoding(Charset.forName(request.getSourceEncoding()));
+        }
+
+        if (classLoader != null) {
+            configuration.setClassLoader(classLoader);
+        } else {
+            configuration.prependAuxClasspath(request.getAuxClasspath());
+        }
+
+        if (request.getSuppressMarker() != null) {
+            configuration.setSuppressMarker(request.getSuppressMarker());
+        }
+        if (request.getAnalysisCacheLocation() != null) {
+            configuration.setAnalysisCacheLocation(request.getAnalysisCacheLocation());
+            LOG.debug("Using analysis cache location: " + request.getAnalysisCacheLocation());
+        } else {
+            configuration.setIgnoreIncrementalAnalysis(true);
+        }
+
+        if (request.getThreads() > 0) {
+            configuration.setThreads(request.getThreads());
+        }
+        configuration.setRuleSets(request.getRulesets());
+        configuration.setMinimumPriority(RulePriority.valueOf(request.getMinimumPriority()));
+        return configuration;
+    }
+
+    /**
+     * Logs the processing errors and fails, unless <code>skipPmdError</code> is set.
+     */
+    private void reportProcessingErrors(List<Report.ProcessingError> errors) throws MavenReportException {
+        if (errors.isEmpty()) {
+            return;
+        }
+        if (!request.isSkipPmdError()) {
+            LOG.error("PMD processing errors:");
+            LOG.error(getErrorsAsString(errors, request.isDebugEnabled()));
+            String msg = errors.size() > 1
+                    ? "Found " + errors.size() + " PMD processing errors"
+                    : "Found 1 PMD processing error";
+            throw new MavenReportException(msg);
+        }
+        String message = errors.size() > 1
+                ? "There are " + errors.size() + " PMD processing errors:"
+                : "There is 1 PMD processing error:";
+        LOG.warn(message);
+        LOG.warn(getErrorsAsString(errors, request.isDebugEnabled()));
     }
 
     /**
      * Gets the errors as a single string. Each error is in its own line.
      *
      * @param withDetails if <code>true</code> then add the error details additionally (contains e.g. the stacktrace)
+     *     once per stack signature, see {@link ProcessingErrorDetails}
      * @return the errors as string
      */
     private String getErrorsAsString(List<Report.ProcessingError> errors, boolean withDetails) {
         List<String> errorsAsString = new ArrayList<>(errors.size());
+        ProcessingErrorDetails details = new ProcessingErrorDetails(request.getMaxProcessingErrorDetails());
         for (Report.ProcessingError error : errors) {
             errorsAsString.add(error.getFileId().getAbsolutePath() + ": " + error.getMsg());
             if (withDetails) {
-                errorsAsString.add(error.getDetail());
+                String detail = error.getDetail();
+                // the detail is only logged for the first error with this stack signature
+                if (details.deduplicate(detail) == detail) {
+                    errorsAsString.add(detail);
+                }
             }
         }
+        if (details.getDroppedDetails() > 0) {
+            errorsAsString.add("(" + details.getDroppedDetails()
+                    + " further stack traces omitted, see the parameter maxProcessingErrorDetails)");
+        }
         return String.join(System.lineSeparator(), errorsAsString);
     }
 
     private void writeBenchmarkReport(TimingReport timingReport, String benchmarkOutputLocation, String encoding) {
+        new File(benchmarkOutputLocation).getAbsoluteFile().getParentFile().mkdirs();
         try (Writer writer = new OutputStreamWriter(new FileOutputStream(benchmarkOutputLocation), encoding)) {
             final TimingReportRenderer renderer = new TextTimingReportRenderer();
             renderer.render(timingReport, writer);
         } catch (IOException e) {
             LOG.error("Unable to generate benchmark file: {}", benchmarkOutputLocation, e);
         }
+
+        writeBenchmarkFiles(
+                BenchmarkReport.create(
+                        timingReport, benchmarkListener.getTimings(), benchmarkListener.getViolationCounts()),
+                new File(benchmarkOutputLocation));
     }
 
-    private Report processFilesWithPMD(PMDConfiguration pmdConfiguration, List<File> files)
+    /**
+     * Merges the JSON and CSV benchmark reports of the shards into the ones of the module.
+     *
+     * @param shardReports the text reports of the shards, next to which the CSV reports are
+     * @param textReport the text report of the module
+     */
+    static void mergeBenchmarkReports(List<File> shardReports, File textReport) {
+        List<BenchmarkReport> reports = new ArrayList<>(shardReports.size());
+        for (File shardReport : shardReports) {
+            File csvReport = BenchmarkReport.getReportFile(shardReport, ".csv");
+            try {
+                reports.add(BenchmarkReport.readCsv(csvReport));
+            } catch (IOException e) {
+                LOG.error("Unable to read the benchmark file of a shard: {}", csvReport, e);
+                return;
+            }
+        }
+        textReport.getAbsoluteFile().getParentFile().mkdirs();
+        writeBenchmarkFiles(BenchmarkReport.merge(reports), textReport);
+    }
+
+    private static void writeBenchmarkFiles(BenchmarkReport benchmarkReport, File textReport) {
+        File jsonReport = BenchmarkReport.getReportFile(textReport, ".json");
+        File csvReport = BenchmarkReport.getReportFile(textReport, ".csv");
+        try {
+            try (Writer writer = Files.newBufferedWriter(jsonReport.toPath(), StandardCharsets.UTF_8)) {
+                benchmarkReport.writeJson(writer);
+            }
+            try (Writer writer = Files.newBufferedWriter(csvReport.toPath(), StandardCharsets.UTF_8)) {
+                benchmarkReport.writeCsv(writer);
+            }
+        } catch (IOException e) {
+            LOG.error("Unable to generate benchmark files: {}, {}", jsonReport, csvReport, e);
+        }
+    }
+
+    /**
+     * @param timings the timings of the previous run, <code>null</code> if the files should not be ordered
+     * @param analysisCacheLocation the analysis cache used by the configuration, might be <code>null</code>
+     */
+    private Report processFilesWithPMD(
+            PMDConfiguration pmdConfiguration, List<File> files, FileTimings timings, String analysisCacheLocation)
             throws MavenReportException {
         Report report = null;
 
-        try (PmdAnalysis pmdAnalysis = PmdAnalysis.create(pmdConfiguration)) {
-            for (File file : files) {
-                pmdAnalysis.files().addFile(file.toPath());
+        try (PhaseEvent event = beginPhase(PhaseEvent.ANALYSIS)) {
+            if (timings != null) {
+                report = processLargestFilesFirst(pmdConfiguration, files, timings, analysisCacheLocation);
+            } else {
+                report = analyze(pmdConfiguration, files, null);
+            }
+            if (failFastListener != null && failFastListener.isTriggered()) {
+                LOG.warn(
+                        "Stopped the analysis after {} failures, more than the {} allowed (failFast)",
+                        failFastListener.getFailures(),
+                        request.getMaxAllowedViolations());
             }
-            LOG.debug("Executing PMD...");
-            report = pmdAnalysis.performAnalysisAndCollectReport();
             LOG.debug(
                     "PMD finished. Found {} violations.", report.getViolations().size());
         } catch (Exception e) {
@@ -298,12 +622,347 @@ public class PmdExecutor extends Executor {
         return report;
     }
 
+    private Report analyze(PMDConfiguration pmdConfiguration, List<File> files, GlobalAnalysisListener listener)
+            throws Exception {
+        if (request.getFileTimeout() > 0) {
+            return analyzeWithTimeout(pmdConfiguration, files, listener);
+        }
+        if (failFastListener != null) {
+            return analyzeFailFast(pmdConfiguration, files, listener);
+        }
+        try (PmdAnalysis pmdAnalysis = PmdAnalysis.create(pmdConfiguration)) {
+            for (File file : files) {
+                pmdAnalysis.files().addFile(file.toPath());
+            }
+            addListeners(pmdAnalysis, listener);
+            LOG.debug("Executing PMD...");
+            return pmdAnalysis.performAnalysisAndCollectReport();
+        }
+    }
+
+    private void addListeners(PmdAnalysis pmdAnalysis, GlobalAnalysisListener listener) {
+        pmdAnalysis.addListener(runningFiles);
+        if (listener != null) {
+            pmdAnalysis.addListener(listener);
+        }
+        if (benchmarkListener != null) {
+            pmdAnalysis.addListener(benchmarkListener);
+        }
+        if (ExecutionListeners.isEnabled()) {
+            pmdAnalysis.addListener(new ExecutionListenerAdapter());
+        }
+        if (failFastListener != null) {
+            pmdAnalysis.addListener(failFastListener);
+        }
+        if (progressReporter != null) {
+            pmdAnalysis.addListener(progressReporter);
+        }
+    }
+
+    /**
+     * Analyzes the files in its own thread, which is given up as soon as the {@link FailFastListener}
+     * has been triggered. PMD can't cancel an analysis: the thread is interrupted, but the files,
+     * which are being analyzed, might still be completed in the background. The results are collected
+     * by a {@link PartialReportBuilder} instead of PMD, so that the results found so far can be reported.
+     */
+    private Report analyzeFailFast(
+            PMDConfiguration pmdConfiguration, List<File> files, GlobalAnalysisListener listener) throws Exception {
+        FailFastListener failFast = failFastListener;
+        PartialReportBuilder reportBuilder = new PartialReportBuilder();
+        FutureTask<Void> analysis = new FutureTask<>(() -> {
+            try (PmdAnalysis pmdAnalysis = PmdAnalysis.create(pmdConfiguration)) {
+                for (File file : files) {
+                    pmdAnalysis.files().addFile(file.toPath());
+                }
+                pmdAnalysis.addListener(reportBuilder);
+                addListeners(pmdAnalysis, listener);
+                LOG.debug("Executing PMD...");
+                pmdAnalysis.performAnalysis();
+            }
+            return null;
+        });
+        Thread thread = new Thread(analysis, "pmd-analysis");
+        thread.setDaemon(true);
+        thread.start();
+
+        while (!analysis.isDone()) {
+            if (failFast.awaitTrigger(100, TimeUnit.MILLISECONDS)) {
+                thread.interrupt();
+                return reportBuilder.getReport();
+            }
+        }
+        try {
+            analysis.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        return reportBuilder.getReport();
+    }
+
+    /**
+     * Appends a comment to the XML report, if the analysis has been stopped by <code>failFast</code>.
+     * The comment follows the root element, so the report stays readable for the check goal.
+     */
+    private void markTruncatedReport() throws MavenReportException {
+        if (failFastListener == null || !failFastListener.isTriggered()) {
+            return;
+        }
+        File xmlReport = new File(request.getTargetDirectory(), "pmd.xml");
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(xmlReport, true), Charset.forName(request.getOutputEncoding()))) {
+            writer.write(TRUNCATED_MARKER + System.lineSeparator());
+        } catch (IOException e) {
+            throw new MavenReportException("Failed to mark the XML report as truncated", e);
+        }
+    }
+
+    /**
+     * Analyzes the files with a {@link FileTimeoutWatchdog}. The analysis runs in its own thread, so that
+     * it can be given up when all its threads are stuck in abandoned files. The remaining files are then
+     * analyzed by a new analysis, without the analysis cache, which is still in use by the stuck one.
+     */
+    private Report analyzeWithTimeout(
+            PMDConfiguration pmdConfiguration, List<File> files, GlobalAnalysisListener listener) throws Exception {
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(request.getFileTimeout());
+        long checkInterval = Math.max(10, Math.min(1000, timeoutMillis / 10));
+        FileTimeoutWatchdog watchdog = new FileTimeoutWatchdog(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        PMDConfiguration configuration = pmdConfiguration;
+        List<File> remainingFiles = files;
+        while (!remainingFiles.isEmpty()) {
+            FileTimeoutWatchdog.Round round = watchdog.startRound();
+            PMDConfiguration roundConfiguration = configuration;
+            List<File> roundFiles = remainingFiles;
+            FutureTask<Void> analysis = new FutureTask<>(() -> {
+                try (PmdAnalysis pmdAnalysis = PmdAnalysis.create(roundConfiguration)) {
+                    for (File file : roundFiles) {
+                        pmdAnalysis.files().addFile(file.toPath());
+                    }
+                    pmdAnalysis.addListener(round);
+                    addListeners(pmdAnalysis, listener);
+                    LOG.debug("Executing PMD...");
+                    pmdAnalysis.performAnalysis();
+                }
+                return null;
+            });
+            Thread thread = new Thread(analysis, "pmd-analysis");
+            thread.setDaemon(true);
+            thread.start();
+
+            boolean stalled = false;
+            while (!stalled && !analysis.isDone()) {
+                if (failFastListener != null && failFastListener.isTriggered()) {
+                    thread.interrupt();
+                    return watchdog.getReport();
+                }
+                try {
+                    analysis.get(checkInterval, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    watchdog.checkTimeouts();
+                    stalled = round.isStalled(configuration.getThreads());
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            if (!stalled) {
+                break;
+            }
+
+            remainingFiles = watchdog.getUnstartedFiles(remainingFiles);
+            LOG.debug("All analysis threads are stuck, analyzing the remaining {} files", remainingFiles.size());
+            configuration = createConfiguration(pmdConfiguration.getClassLoader());
+            configuration.setThreads(pmdConfiguration.getThreads());
+            configuration.setIgnoreIncrementalAnalysis(true);
+        }
+
+        // files might still be running in a stuck analysis
+        while (watchdog.hasActiveFiles()) {
+            Thread.sleep(checkInterval);
+            watchdog.checkTimeouts();
+        }
+        return watchdog.getReport();
+    }
+
+    /**
+     * Passes the files to PMD ordered by their estimated cost, the most expensive first.
+     * Since PMD distributes the files to its threads in its own order, the few files, that are
+     * expensive enough to delay the end of the analysis, are additionally analyzed in a separate
+     * analysis running concurrently to the one for all other files. This split is not done with the
+     * analysis cache: PMD prunes a cache down to the files of its analysis, so files moving between
+     * the two analyses would never be found in a cache.
+     */
+    private Report processLargestFilesFirst(
+            PMDConfiguration pmdConfiguration, List<File> files, FileTimings timings, String analysisCacheLocation)
+            throws Exception {
+        Map<File, Long> costs = timings.estimateCosts(files);
+        List<File> largestFiles = analysisCacheLocation != null
+                ? Collections.<File>emptyList()
+                : FileTimings.selectMostExpensive(costs, pmdConfiguration.getThreads());
+        List<File> otherFiles = new ArrayList<>(costs.keySet());
+        otherFiles.removeAll(largestFiles);
+
+        FileTimingListener timingListener = new FileTimingListener();
+        Report report;
+        if (largestFiles.isEmpty()) {
+            report = analyze(pmdConfiguration, otherFiles, timingListener);
+        } else {
+            LOG.debug("Analyzing the {} most expensive files separately: {}", largestFiles.size(), largestFiles);
+            PMDConfiguration largestFilesConfiguration = createConfiguration(pmdConfiguration.getClassLoader());
+            PMDConfiguration otherFilesConfiguration = createConfiguration(pmdConfiguration.getClassLoader());
+            // the threads are split, so that the total stays the same
+            largestFilesConfiguration.setThreads(largestFiles.size());
+            otherFilesConfiguration.setThreads(pmdConfiguration.getThreads() - largestFiles.size());
+            FutureTask<Report> largestFilesAnalysis =
+                    new FutureTask<>(() -> analyze(largestFilesConfiguration, largestFiles, timingListener));
+            Thread thread = new Thread(largestFilesAnalysis, "pmd-largest-files");
+            thread.setDaemon(true);
+            thread.start();
+
+            Report otherFilesReport = analyze(otherFilesConfiguration, otherFiles, timingListener);
+            try {
+                report = largestFilesAnalysis.get().union(otherFilesReport);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        timings.update(timingListener.getTimings(), analysisCacheLocation != null);
+        return report;
+    }
+
+    /**
+     * Analyzes the files in batches, so that the memory needed for the ASTs, the type resolution
+     * and the violations is bounded. The results of each batch are written to the report files
+     * right away. The batches are contiguous ranges of the files sorted by path, so the reports
+     * are the same as with a single analysis.
+     */
+    private void processFilesInBatches(PMDConfiguration configuration, List<File> files, FileTimings timings)
+            throws MavenReportException {
+        List<List<File>> batches = createBatches(files, request.getBatchMemoryBudget());
+        LOG.debug("Analyzing {} files in {} batches", files.size(), batches.size());
+
+        XMLRenderer xmlRenderer = new XMLRenderer(request.getOutputEncoding());
+        Renderer formattedRenderer = null;
+        String format = request.getFormat();
+        if (!"html".equals(format) && !"xml".equals(format)) {
+            formattedRenderer = createRenderer(format, request.getOutputEncoding());
+        }
+
+        List<Report.ProcessingError> errors = new ArrayList<>();
+        try (Writer xmlWriter = startReport(xmlRenderer);
+                Writer formattedWriter = formattedRenderer != null ? startReport(formattedRenderer) : null) {
+            for (int i = 0; i < batches.size(); i++) {
+                List<File> batch = batches.get(i);
+                // the analysis might change the configuration, e.g. the threads, so each batch gets its own
+                PMDConfiguration batchConfiguration = createConfiguration(configuration.getClassLoader());
+                // PMD only keeps the files of the current analysis in its cache, so each batch needs its own
+                String analysisCacheLocation = null;
+                if (request.getAnalysisCacheLocation() != null) {
+                    analysisCacheLocation = getBatchCacheLocation(batch);
+                    batchConfiguration.setAnalysisCacheLocation(analysisCacheLocation);
+                }
+                LOG.debug("Analyzing batch {} of {} with {} files", i + 1, batches.size(), batch.size());
+                if (failFastListener != null) {
+                    failFastListener = failFastListener.forNextAnalysis();
+                }
+                Report report = processFilesWithPMD(batchConfiguration, batch, timings, analysisCacheLocation);
+                if (report == null) {
+                    continue;
+                }
+                errors.addAll(report.getProcessingErrors());
+                report = removeExcludedViolations(report);
+                xmlRenderer.renderFileReport(report);
+                if (formattedRenderer != null) {
+                    formattedRenderer.renderFileReport(report);
+                }
+                if (failFastListener != null && failFastListener.isTriggered()) {
+                    break;
+                }
+            }
+            xmlRenderer.end();
+            xmlRenderer.flush();
+            if (formattedRenderer != null) {
+                formattedRenderer.end();
+                formattedRenderer.flush();
+            }
+        } catch (IOException e) {
+            throw new MavenReportException("Failed to write PMD report", e);
+        }
+        ExecutionListeners.reportWritten(getReportFile(xmlRenderer));
+        if (formattedRenderer != null) {
+            ExecutionListeners.reportWritten(getReportFile(formattedRenderer));
+        }
+
+        reportProcessingErrors(errors);
+        try {
+            copyXmlReport(getReportFile(xmlRenderer));
+        } catch (IOException e) {
+            throw new MavenReportException("Failed to write XML report", e);
+        }
+    }
+
+    /**
+     * Gets the analysis cache of a batch. It is named after the first file of the batch, not after the index
+     * of the batch, so that the caches of the batches in front of an added or removed file stay valid. The
+     * caches of the batches behind it are only lost, if their first file changes, because a batch boundary
+     * moved.
+     */
+    private String getBatchCacheLocation(List<File> batch) {
+        return request.getAnalysisCacheLocation() + ".batch-"
+                + Integer.toHexString(batch.get(0).getPath().hashCode());
+    }
+
+    /**
+     * Splits the files into batches. The source files of a batch take at most 1/{@value #HEAP_BYTES_PER_SOURCE_BYTE}
+     * of the memory budget, which leaves room for the ASTs and the results.
+     *
+     * @param files the files, sorted by path
+     * @param memoryBudget the memory budget in megabytes
+     * @return the batches, each containing at least one file
+     */
+    static List<List<File>> createBatches(List<File> files, int memoryBudget) {
+        long maxBatchBytes = memoryBudget * 1024L * 1024L / HEAP_BYTES_PER_SOURCE_BYTE;
+        List<List<File>> batches = new ArrayList<>();
+        List<File> batch = new ArrayList<>();
+        long batchBytes = 0;
+        for (File file : files) {
+            long size = file.length();
+            if (!batch.isEmpty() && batchBytes + size > maxBatchBytes) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(file);
+            batchBytes += size;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
     /**
      * Use the PMD XML renderer to create the XML report format used by the
      * check mojo later on.
      */
     private void writeXmlReport(Report report) throws IOException {
-        File targetFile = writeReport(report, new XMLRenderer(request.getOutputEncoding()));
+        try (PhaseEvent event = beginPhase(PhaseEvent.XML_REPORT)) {
+            File targetFile = writeReport(report, new XMLRenderer(request.getOutputEncoding()));
+            copyXmlReport(targetFile);
+        }
+    }
+
+    private PhaseEvent beginPhase(String phase) {
+        return PhaseEvent.begin(phase, request.getModule(), request.getGoal());
+    }
+
+    private PmdResult readResult(File pmdFile) throws MavenReportException {
+        try (PhaseEvent event = beginPhase(PhaseEvent.RESULT_PARSING)) {
+            return new PmdResult(pmdFile, request.getOutputEncoding(), request.getMaxProcessingErrorDetails());
+        }
+    }
+
+    private void copyXmlReport(File targetFile) throws IOException {
         if (request.isIncludeXmlInReports()) {
             File outputDirectory = new File(request.getReportOutputDirectory());
             if (!outputDirectory.exists() && !outputDirectory.mkdirs()) {
@@ -318,27 +977,49 @@ public class PmdExecutor extends Executor {
             return null;
         }
 
-        File targetDir = new File(request.getTargetDirectory());
-        if (!targetDir.exists() && !targetDir.mkdirs()) {
-            throw new IOException("Couldn't create report target directory: " + targetDir);
-        }
-
-        String extension = renderer.defaultFileExtension();
-        File targetFile = new File(targetDir, "pmd." + extension);
-        try (Writer writer =
-                Files.newBufferedWriter(targetFile.toPath(), Charset.forName(request.getOutputEncoding()))) {
-            renderer.setWriter(writer);
-            renderer.start();
+        try (Writer writer = startReport(renderer)) {
             if (report != null) {
                 renderer.renderFileReport(report);
             }
             renderer.end();
             renderer.flush();
+        }
+
+        File reportFile = getReportFile(renderer);
+        ExecutionListeners.reportWritten(reportFile);
+        return reportFile;
+    }
+
+    private File getReportFile(Renderer renderer) {
+        return new File(request.getTargetDirectory(), "pmd." + renderer.defaultFileExtension());
+    }
+
+    /**
+     * Opens the report file for the renderer and starts the report.
+     *
+     * @return the writer of the report file, which must be closed after the report has been ended
+     */
+    private Writer startReport(Renderer renderer) throws IOException {
+        File targetDir = new File(request.getTargetDirectory());
+        if (!targetDir.exists() && !targetDir.mkdirs()) {
+            throw new IOException("Couldn't create report target directory: " + targetDir);
+        }
+
+        Writer writer;
+        try {
+            writer = Files.newBufferedWriter(
+                    getReportFile(renderer).toPath(), Charset.forName(request.getOutputEncoding()));
         } catch (UnsupportedCharsetException | IllegalCharsetNameException ex) {
             throw new UnsupportedEncodingException(ex.getMessage());
         }
-
-        return targetFile;
+        try {
+            renderer.setWriter(writer);
+            renderer.start();
+        } catch (IOException | RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+        return writer;
     }
 
     /**
@@ -386,13 +1067,7 @@ public class PmdExecutor extends Executor {
             return null;
         }
 
-        ExcludeViolationsFromFile excludeFromFile = new ExcludeViolationsFromFile();
-
-        try {
-            excludeFromFile.loadExcludeFromFailuresData(request.getExcludeFromFailureFile());
-        } catch (MojoExecutionException e) {
-            throw new MavenReportException("Unable to load exclusions", e);
-        }
+        ExcludeViolationsFromFile excludeFromFile = loadExclusions();
 
         LOG.debug("Removing excluded violations. Using {} configured exclusions.", excludeFromFile.countExclusions());
         int violationsBefore = report.getViolations().size();
@@ -405,4 +1080,14 @@ public class PmdExecutor extends Executor {
         LOG.debug("Excluded {} violations.", numberOfExcludedViolations);
         return filtered;
     }
+
+    private ExcludeViolationsFromFile loadExclusions() throws MavenReportException {
+        ExcludeViolationsFromFile excludeFromFile = new ExcludeViolationsFromFile();
+        try {
+            excludeFromFile.loadExcludeFromFailuresData(request.getExcludeFromFailureFile());
+        } catch (MojoExecutionException e) {
+            throw new MavenReportException("Unable to load exclusions", e);
+        }
+        return excludeFromFile;
+    }
 }
@@ -38,6 +38,9 @@ public class PmdRequest implements Serializable {
 
     private Map<String, String> jdkToolchain;
 
+    private String module;
+    private String goal;
+
     private String language;
     private String languageVersion;
     private int minimumPriority;
@@ -50,6 +53,7 @@ public class PmdRequest implements Serializable {
 
     private String logLevel;
     private boolean skipPmdError;
+    private int maxProcessingErrorDetails = ProcessingErrorDetails.DEFAULT_MAX_DETAILS;
 
     private String excludeFromFailureFile;
     private String targetDirectory;
@@ -58,6 +62,16 @@ public class PmdRequest implements Serializable {
     private String benchmarkOutputLocation;
     private boolean includeXmlInReports;
     private String reportOutputDirectory;
+    private boolean largestFilesFirst;
+    private int threads;
+    private int batchMemoryBudget;
+    private int shards;
+    private int fileTimeout;
+    private boolean failFast;
+    private int failurePriority;
+    private int maxAllowedViolations;
+    private int progressInterval;
+    private String progressEventsFile;
 
     /**
      * Configure language and language version.
@@ -82,6 +96,17 @@ public class PmdRequest implements Serializable {
         this.jdkToolchain = jdkToolchain;
     }
 
+    /**
+     * Sets the module and goal, which the {@link PhaseEvent}s of the execution are tagged with.
+     *
+     * @param module the module, e.g. the artifactId
+     * @param goal the goal
+     */
+    public void setExecutionContext(String module, String goal) {
+        this.module = module;
+        this.goal = goal;
+    }
+
     public void setMinimumPriority(int minimumPriority) {
         this.minimumPriority = minimumPriority;
     }
@@ -110,6 +135,10 @@ public class PmdRequest implements Serializable {
         this.files.addAll(files);
     }
 
+    public void setFiles(List<File> files) {
+        this.files = new ArrayList<>(files);
+    }
+
     public void setBenchmarkOutputLocation(String benchmarkOutputLocation) {
         this.benchmarkOutputLocation = benchmarkOutputLocation;
     }
@@ -134,6 +163,10 @@ public class PmdRequest implements Serializable {
         this.skipPmdError = skipPmdError;
     }
 
+    public void setMaxProcessingErrorDetails(int maxProcessingErrorDetails) {
+        this.maxProcessingErrorDetails = maxProcessingErrorDetails;
+    }
+
     public void setIncludeXmlInReports(boolean includeXmlInReports) {
         this.includeXmlInReports = includeXmlInReports;
     }
@@ -146,10 +179,75 @@ public class PmdRequest implements Serializable {
         this.excludeFromFailureFile = excludeFromFailureFile;
     }
 
+    public void setLargestFilesFirst(boolean largestFilesFirst) {
+        this.largestFilesFirst = largestFilesFirst;
+    }
+
+    /**
+     * @param threads the number of analysis threads, <code>0</code> for PMD's default
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param batchMemoryBudget the memory budget in megabytes for analyzing the files in batches,
+     *     <code>0</code> to analyze all files at once
+     */
+    public void setBatchMemoryBudget(int batchMemoryBudget) {
+        this.batchMemoryBudget = batchMemoryBudget;
+    }
+
+    /**
+     * @param shards the number of JVMs to run in parallel, each analyzing a part of the files.
+     *     <code>0</code> or <code>1</code> to analyze all files in one JVM
+     */
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * @param fileTimeout the maximum time in seconds for the analysis of one file, <code>0</code> for no limit
+     */
+    public void setFileTimeout(int fileTimeout) {
+        this.fileTimeout = fileTimeout;
+    }
+
+    /**
+     * Stops the analysis as soon as more than <code>maxAllowedViolations</code> failures have been found.
+     *
+     * @param failurePriority the priority up to which violations are failures
+     * @param maxAllowedViolations the number of failures, which doesn't fail the build yet
+     */
+    public void setFailFast(int failurePriority, int maxAllowedViolations) {
+        this.failFast = true;
+        this.failurePriority = failurePriority;
+        this.maxAllowedViolations = maxAllowedViolations;
+    }
+
+    /**
+     * Configures the progress reporting of the analysis.
+     *
+     * @param progressInterval the interval of the progress lines in seconds, <code>0</code> for none
+     * @param progressEventsFile the NDJSON file for the progress events, might be <code>null</code>
+     */
+    public void setProgress(int progressInterval, String progressEventsFile) {
+        this.progressInterval = progressInterval;
+        this.progressEventsFile = progressEventsFile;
+    }
+
     public Map<String, String> getJdkToolchain() {
         return jdkToolchain;
     }
 
+    public String getModule() {
+        return module;
+    }
+
+    public String getGoal() {
+        return goal;
+    }
+
     public String getLanguage() {
         return language;
     }
@@ -214,6 +312,10 @@ public class PmdRequest implements Serializable {
         return skipPmdError;
     }
 
+    public int getMaxProcessingErrorDetails() {
+        return maxProcessingErrorDetails;
+    }
+
     public boolean isIncludeXmlInReports() {
         return includeXmlInReports;
     }
@@ -225,4 +327,44 @@ public class PmdRequest implements Serializable {
     public String getExcludeFromFailureFile() {
         return excludeFromFailureFile;
     }
+
+    public boolean isLargestFilesFirst() {
+        return largestFilesFirst;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getBatchMemoryBudget() {
+        return batchMemoryBudget;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public int getFileTimeout() {
+        return fileTimeout;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public int getFailurePriority() {
+        return failurePriority;
+    }
+
+    public int getMaxAllowedViolations() {
+        return maxAllowedViolations;
+    }
+
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+
+    public String getProgressEventsFile() {
+        return progressEventsFile;
+    }
 }
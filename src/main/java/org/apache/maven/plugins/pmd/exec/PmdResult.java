@@ -19,118 +19,130 @@
 package org.apache.maven.plugins.pmd.exec;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FilterReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-import org.apache.maven.plugins.pmd.model.PmdErrorDetail;
-import org.apache.maven.plugins.pmd.model.PmdFile;
 import org.apache.maven.plugins.pmd.model.ProcessingError;
 import org.apache.maven.plugins.pmd.model.SuppressedViolation;
 import org.apache.maven.plugins.pmd.model.Violation;
-import org.apache.maven.plugins.pmd.model.io.xpp3.PmdXpp3Reader;
 import org.apache.maven.reporting.MavenReportException;
 
 /**
  * Provides access to the result of the pmd analysis.
+ *
+ * <p>The violations, the suppressed violations and the processing errors are read from the report
+ * separately, when they are asked for the first time. The violations are kept in a {@link ViolationStore}.
+ * Processing errors with the same stack signature share one detail, see {@link ProcessingErrorDetails}.
  */
 public class PmdResult {
-    private final List<ProcessingError> processingErrors = new ArrayList<>();
-    private final List<Violation> violations = new ArrayList<>();
-    private final List<SuppressedViolation> suppressedViolations = new ArrayList<>();
+    private final PmdResultReader reader;
+    private final int maxProcessingErrorDetails;
+    private List<ProcessingError> processingErrors;
+    private int omittedErrorDetails;
+    private ViolationStore violations;
+    private List<SuppressedViolation> suppressedViolations;
 
     public static final PmdResult EMPTY = new PmdResult();
 
-    private PmdResult() {}
-
-    public PmdResult(File pmdFile, String encoding) throws MavenReportException {
-        loadResult(pmdFile, encoding);
+    private PmdResult() {
+        reader = null;
+        maxProcessingErrorDetails = ProcessingErrorDetails.DEFAULT_MAX_DETAILS;
+        processingErrors = new ArrayList<>();
+        violations = new ViolationStore();
+        suppressedViolations = new ArrayList<>();
     }
 
-    public boolean hasViolations() {
-        return !violations.isEmpty();
+    public PmdResult(File pmdFile, String encoding) throws MavenReportException {
+        this(pmdFile, encoding, ProcessingErrorDetails.DEFAULT_MAX_DETAILS);
     }
 
-    private void loadResult(File pmdFile, String encoding) throws MavenReportException {
-        try (Reader reader1 = new BomFilter(encoding, new InputStreamReader(new FileInputStream(pmdFile), encoding))) {
-            PmdXpp3Reader reader = new PmdXpp3Reader();
-            PmdErrorDetail details = reader.read(reader1, false);
-            processingErrors.addAll(details.getErrors());
-            suppressedViolations.addAll(details.getSuppressedViolations());
-
-            for (PmdFile file : details.getFiles()) {
-                String filename = file.getName();
-                for (Violation violation : file.getViolations()) {
-                    violation.setFileName(filename);
-                    violations.add(violation);
-                }
-            }
-        } catch (Exception e) {
-            throw new MavenReportException(e.getMessage(), e);
+    /**
+     * @param pmdFile the XML report
+     * @param encoding the encoding of the report
+     * @param maxProcessingErrorDetails the number of distinct stack traces of processing errors, which are
+     *     kept, negative for all
+     * @throws MavenReportException if the report doesn't exist
+     */
+    public PmdResult(File pmdFile, String encoding, int maxProcessingErrorDetails) throws MavenReportException {
+        if (!pmdFile.isFile()) {
+            throw new MavenReportException("PMD report " + pmdFile + " not found");
         }
+        reader = new PmdResultReader(pmdFile, encoding);
+        this.maxProcessingErrorDetails = maxProcessingErrorDetails;
     }
 
-    // Note: This seems to be a bug in PMD's XMLRenderer. The BOM is rendered multiple times.
-    // once at the beginning of the file, which is Ok, but also in the middle of the file.
-    // This filter just skips all BOMs if the encoding is not UTF-8
-    private static class BomFilter extends FilterReader {
-        private static final char BOM = '\uFEFF';
-        private final boolean filter;
-
-        BomFilter(String encoding, Reader in) {
-            super(in);
-            filter = !"UTF-8".equalsIgnoreCase(encoding);
+    public boolean hasViolations() throws MavenReportException {
+        if (violations != null) {
+            return violations.size() > 0;
         }
-
-        @Override
-        public int read() throws IOException {
-            int c = super.read();
-
-            if (!filter) {
-                return c;
-            }
-
-            while (c == BOM) {
-                c = super.read();
-            }
-            return c;
+        try {
+            return reader.hasViolations();
+        } catch (IOException e) {
+            throw new MavenReportException(e.getMessage(), e);
         }
+    }
 
-        @Override
-        public int read(char[] cbuf, int off, int len) throws IOException {
-            int count = super.read(cbuf, off, len);
-
-            if (!filter) {
-                return count;
-            }
+    public Collection<Violation> getViolations() throws MavenReportException {
+        return getViolationStore().asList();
+    }
 
-            if (count != -1) {
-                for (int i = off; i < off + count; i++) {
-                    if (cbuf[i] == BOM) {
-                        // shift the content one char to the left
-                        System.arraycopy(cbuf, i + 1, cbuf, i, off + count - 1 - i);
-                        count--;
-                    }
-                }
+    /**
+     * @return the violations in columns, see {@link ViolationStore}
+     * @throws MavenReportException if the report can't be read
+     */
+    public ViolationStore getViolationStore() throws MavenReportException {
+        if (violations == null) {
+            ViolationStore result = new ViolationStore();
+            try {
+                reader.readViolations(result);
+            } catch (IOException e) {
+                throw new MavenReportException(e.getMessage(), e);
             }
-            return count;
+            violations = result;
         }
-    }
-
-    public Collection<Violation> getViolations() {
         return violations;
     }
 
-    public Collection<SuppressedViolation> getSuppressedViolations() {
+    public Collection<SuppressedViolation> getSuppressedViolations() throws MavenReportException {
+        if (suppressedViolations == null) {
+            List<SuppressedViolation> result = new ArrayList<>();
+            try {
+                reader.readSuppressedViolations(result::add);
+            } catch (IOException e) {
+                throw new MavenReportException(e.getMessage(), e);
+            }
+            suppressedViolations = result;
+        }
         return suppressedViolations;
     }
 
-    public Collection<ProcessingError> getErrors() {
+    public Collection<ProcessingError> getErrors() throws MavenReportException {
+        if (processingErrors == null) {
+            List<ProcessingError> result = new ArrayList<>();
+            ProcessingErrorDetails details = new ProcessingErrorDetails(maxProcessingErrorDetails);
+            try {
+                reader.readErrors(error -> {
+                    error.setDetail(details.deduplicate(error.getDetail()));
+                    result.add(error);
+                });
+            } catch (IOException e) {
+                throw new MavenReportException(e.getMessage(), e);
+            }
+            processingErrors = result;
+            omittedErrorDetails = details.getDroppedDetails();
+        }
         return processingErrors;
     }
+
+    /**
+     * @return the number of processing errors, whose stack trace has been dropped, as there were more
+     *     distinct stack traces than <code>maxProcessingErrorDetails</code>
+     * @throws MavenReportException if the report can't be read
+     */
+    public int getOmittedErrorDetails() throws MavenReportException {
+        getErrors();
+        return omittedErrorDetails;
+    }
 }
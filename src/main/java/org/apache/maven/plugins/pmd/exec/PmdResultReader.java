@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.function.Consumer;
+
+import org.apache.maven.plugins.pmd.model.ProcessingError;
+import org.apache.maven.plugins.pmd.model.SuppressedViolation;
+
+/**
+ * Reads the XML report of PMD with StAX, one kind of element at a time: the violations, the
+ * suppressed violations or the processing errors. Every read streams the report and creates only
+ * the elements asked for, so the whole model is never held in memory. The strings of one read,
+ * e.g. the rule names and paths, are deduplicated with a {@link StringPool}, the violations are
+ * read into a {@link ViolationStore}.
+ *
+ * @since 3.28.1
+ */
+public class PmdResultReader {
+    private final XMLInputFactory inputFactory;
+
+    private final File pmdFile;
+
+    private final String encoding;
+
+    /**
+     * @param pmdFile the XML report
+     * @param encoding the encoding of the report or <code>null</code> to use the one of the XML declaration
+     */
+    public PmdResultReader(File pmdFile, String encoding) {
+        this.pmdFile = pmdFile;
+        this.encoding = encoding;
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * @return <code>true</code> if the report contains at least one violation. Reading stops at the first one.
+     * @throws IOException if the report can't be read
+     */
+    public boolean hasViolations() throws IOException {
+        boolean[] found = new boolean[1];
+        read("violation", (reader, fileName, pool) -> {
+            found[0] = true;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Reads the violations into a store, without creating beans. Their file name is the name of the
+     * enclosing file element. The store deduplicates the strings itself.
+     *
+     * @param store receives the violations in the order of the report
+     * @throws IOException if the report can't be read
+     */
+    public void readViolations(ViolationStore store) throws IOException {
+        read("violation", (reader, fileName, pool) -> {
+            // the message is the content, so the attributes are read first
+            int beginLine = getInt(reader, "beginline");
+            int endLine = getInt(reader, "endline");
+            int priority = getInt(reader, "priority");
+            String rule = getAttribute(reader, "rule");
+            String violationPackage = getAttribute(reader, "package");
+            String violationClass = getAttribute(reader, "class");
+            String externalInfoUrl = getAttribute(reader, "externalInfoUrl");
+            store.add(
+                    beginLine,
+                    endLine,
+                    priority,
+                    fileName,
+                    rule,
+                    violationPackage,
+                    violationClass,
+                    externalInfoUrl,
+                    getText(reader));
+            return true;
+        });
+    }
+
+    /**
+     * @param consumer receives the suppressed violations in the order of the report
+     * @throws IOException if the report can't be read
+     */
+    public void readSuppressedViolations(Consumer<SuppressedViolation> consumer) throws IOException {
+        read("suppressedviolation", (reader, fileName, pool) -> {
+            SuppressedViolation suppressedViolation = new SuppressedViolation();
+            suppressedViolation.setFilename(pool.intern(getAttribute(reader, "filename")));
+            suppressedViolation.setSuppressionType(pool.intern(getAttribute(reader, "suppressiontype")));
+            suppressedViolation.setRuleMessage(pool.intern(getAttribute(reader, "msg")));
+            suppressedViolation.setUserMessage(pool.intern(getAttribute(reader, "usermsg")));
+            consumer.accept(suppressedViolation);
+            return true;
+        });
+    }
+
+    /**
+     * @param consumer receives the processing errors in the order of the report
+     * @throws IOException if the report can't be read
+     */
+    public void readErrors(Consumer<ProcessingError> consumer) throws IOException {
+        read("error", (reader, fileName, pool) -> {
+            ProcessingError error = new ProcessingError();
+            error.setFilename(pool.intern(getAttribute(reader, "filename")));
+            error.setMsg(pool.intern(getAttribute(reader, "msg")));
+            error.setDetail(getText(reader));
+            consumer.accept(error);
+            return true;
+        });
+    }
+
+    private void read(String elementName, ElementHandler handler) throws IOException {
+        try (InputStream in = Files.newInputStream(pmdFile.toPath())) {
+            XMLStreamReader reader = encoding != null
+                    ? inputFactory.createXMLStreamReader(new BomFilter(encoding, new InputStreamReader(in, encoding)))
+                    : inputFactory.createXMLStreamReader(in);
+            try {
+                StringPool pool = new StringPool();
+                String fileName = null;
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String name = reader.getLocalName();
+                    if ("file".equals(name)) {
+                        fileName = pool.intern(getAttribute(reader, "name"));
+                    } else if (elementName.equals(name) && !handler.handle(reader, fileName, pool)) {
+                        return;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to read report " + pmdFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String getAttribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value.trim() : null;
+    }
+
+    private static int getInt(XMLStreamReader reader, String name) {
+        String value = getAttribute(reader, name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                // like the lenient model reader
+            }
+        }
+        return 0;
+    }
+
+    private static String getText(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+
+    @FunctionalInterface
+    private interface ElementHandler {
+        /**
+         * @param reader the reader, positioned at the start of the element
+         * @param fileName the name of the enclosing file element, might be <code>null</code>
+         * @param pool the pool for the strings of this read
+         * @return <code>false</code> to stop reading
+         */
+        boolean handle(XMLStreamReader reader, String fileName, StringPool pool) throws XMLStreamException;
+    }
+}
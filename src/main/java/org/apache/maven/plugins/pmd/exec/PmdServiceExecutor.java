@@ -23,6 +23,8 @@ import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import java.io.File;
+
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.reporting.MavenReportException;
 import org.apache.maven.toolchain.ToolchainManager;
@@ -35,19 +37,26 @@ import org.apache.maven.toolchain.ToolchainManager;
 public class PmdServiceExecutor extends ServiceExecutor {
 
     @Inject
-    public PmdServiceExecutor(ToolchainManager toolchainManager, Provider<MavenSession> sessionProvider) {
-        super(toolchainManager, sessionProvider);
+    public PmdServiceExecutor(
+            ToolchainManager toolchainManager,
+            Provider<MavenSession> sessionProvider,
+            AnalysisThreadBudget threadBudget) {
+        super(toolchainManager, sessionProvider, threadBudget);
     }
 
     public PmdResult execute(PmdRequest request) throws MavenReportException {
 
         // make sure the class loaders are correct and call this in the same JVM
         ClassLoader origLoader = Thread.currentThread().getContextClassLoader();
-        try {
+        try (AnalysisThreadBudget.Lease threads = acquireThreads(0)) {
             Thread.currentThread().setContextClassLoader(PmdExecutor.class.getClassLoader());
+            request.setThreads(threads.getThreads());
             PmdExecutor executor = new PmdExecutor(request);
 
             String javaExecutable = getJavaExecutable(request.getJdkToolchain());
+            if (request.getShards() > 1 && request.getFiles().size() > 1) {
+                return executor.forkShards(javaExecutable != null ? javaExecutable : getCurrentJavaExecutable());
+            }
             if (javaExecutable != null) {
                 return executor.fork(javaExecutable);
             }
@@ -56,4 +65,8 @@ public class PmdServiceExecutor extends ServiceExecutor {
             Thread.currentThread().setContextClassLoader(origLoader);
         }
     }
+
+    private static String getCurrentJavaExecutable() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
 }
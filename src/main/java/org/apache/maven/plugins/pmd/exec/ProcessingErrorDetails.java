@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deduplicates the details of processing errors, i.e. their stack traces. Errors with the same
+ * stack signature, e.g. caused by one broken class in the aux classpath for thousands of files,
+ * share the detail of the first one. Only a limited number of distinct details is kept,
+ * the details of further errors are dropped. Not thread-safe.
+ */
+final class ProcessingErrorDetails {
+    /**
+     * The default number of distinct details, which are kept.
+     */
+    static final int DEFAULT_MAX_DETAILS = 20;
+
+    private final int maxDetails;
+
+    private final Map<String, String> details = new HashMap<>();
+
+    private int droppedDetails;
+
+    /**
+     * @param maxDetails the number of distinct details, which are kept, negative for all
+     */
+    ProcessingErrorDetails(int maxDetails) {
+        this.maxDetails = maxDetails;
+    }
+
+    /**
+     * @param detail the detail of an error, might be <code>null</code>
+     * @return the detail of the first error with the same stack signature or the given detail, if it is
+     *     the first one. <code>null</code> if too many distinct details have been seen.
+     */
+    String deduplicate(String detail) {
+        if (detail == null) {
+            return null;
+        }
+        String signature = getSignature(detail);
+        String first = details.get(signature);
+        if (first != null) {
+            return first;
+        }
+        if (maxDetails >= 0 && details.size() >= maxDetails) {
+            droppedDetails++;
+            return null;
+        }
+        details.put(signature, detail);
+        return detail;
+    }
+
+    /**
+     * @return the number of errors, whose details have been dropped because of the limit
+     */
+    int getDroppedDetails() {
+        return droppedDetails;
+    }
+
+    /**
+     * The signature of a stack trace: the exception classes and the stack frames without the messages,
+     * which usually contain the name of the file.
+     *
+     * @param detail the stack trace
+     * @return the signature
+     */
+    static String getSignature(String detail) {
+        StringBuilder signature = new StringBuilder();
+        boolean first = true;
+        for (String line : detail.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (first || trimmed.startsWith("Caused by: ")) {
+                int start = first ? 0 : "Caused by: ".length();
+                int colon = trimmed.indexOf(':', start);
+                signature.append(colon >= 0 ? trimmed.substring(0, colon) : trimmed).append('\n');
+                first = false;
+            } else if (trimmed.startsWith("at ")) {
+                signature.append(trimmed).append('\n');
+            }
+        }
+        return signature.toString();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the progress of an analysis periodically: the files done out of the total, the throughput,
+ * the estimated remaining time and the heap in use. Optionally, every completed file is written as
+ * a JSON object to an NDJSON file. In a forked JVM, the progress is logged through its output,
+ * which is passed on by the executor.
+ *
+ * <p>For PMD, the reporter is added as a listener to the analysis, CPD passes its progress
+ * with {@link #filesCompleted(int)} and {@link #setPhase(String)}.
+ */
+class ProgressReporter implements GlobalAnalysisListener {
+    private static final Logger LOG = LoggerFactory.getLogger(ProgressReporter.class);
+
+    private final String tool;
+
+    private final int totalFiles;
+
+    private final AtomicInteger completedFiles = new AtomicInteger();
+
+    private final long start = System.nanoTime();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Writer events;
+
+    private volatile String phase;
+
+    private boolean finished;
+
+    /**
+     * @param tool the name of the tool, e.g. <code>PMD</code>
+     * @param totalFiles the number of files to analyze
+     * @param intervalSeconds the interval of the progress lines in seconds, <code>0</code> for none
+     * @param eventsFile the NDJSON file for the completed files, might be <code>null</code>
+     * @throws IOException if the events file can't be created
+     */
+    ProgressReporter(String tool, int totalFiles, int intervalSeconds, File eventsFile) throws IOException {
+        this.tool = tool;
+        this.totalFiles = totalFiles;
+        if (eventsFile != null) {
+            File parent = eventsFile.getAbsoluteFile().getParentFile();
+            if (!parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Couldn't create directory: " + parent);
+            }
+            events = Files.newBufferedWriter(
+                    eventsFile.toPath(),
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } else {
+            events = null;
+        }
+        if (intervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pmd-progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(
+                    () -> LOG.info(formatProgress()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Creates a reporter, if progress reporting is enabled.
+     *
+     * @param tool the name of the tool, e.g. <code>PMD</code>
+     * @param totalFiles the number of files to analyze
+     * @param intervalSeconds the interval of the progress lines in seconds, <code>0</code> for none
+     * @param eventsFile the path of the NDJSON file for the completed files, might be <code>null</code>
+     * @return the reporter or <code>null</code>, if neither progress lines nor events are requested
+     */
+    static ProgressReporter create(String tool, int totalFiles, int intervalSeconds, String eventsFile) {
+        if (intervalSeconds <= 0 && eventsFile == null) {
+            return null;
+        }
+        try {
+            return new ProgressReporter(
+                    tool, totalFiles, intervalSeconds, eventsFile != null ? new File(eventsFile) : null);
+        } catch (IOException e) {
+            LOG.warn("Unable to create the progress events file {}: {}", eventsFile, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        final String path = file.getFileId().getAbsolutePath();
+        final long fileStart = System.nanoTime();
+        return new FileAnalysisListener() {
+            private int violations;
+
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                violations++;
+            }
+
+            @Override
+            public void close() {
+                fileCompleted(path, System.nanoTime() - fileStart, violations);
+            }
+        };
+    }
+
+    /**
+     * Counts a completed file and writes its event.
+     *
+     * @param path the path of the file
+     * @param durationNanos the duration of its analysis
+     * @param violations the number of violations found
+     */
+    void fileCompleted(String path, long durationNanos, int violations) {
+        int completed = completedFiles.incrementAndGet();
+        if (events != null) {
+            writeEvent("{\"event\":\"fileCompleted\",\"tool\":" + BenchmarkReport.quoteJson(tool) + ",\"file\":"
+                    + BenchmarkReport.quoteJson(path) + ",\"durationNanos\":" + durationNanos + ",\"violations\":"
+                    + violations + ",\"completed\":" + completed + ",\"total\":" + totalFiles + ",\"timestamp\":"
+                    + System.currentTimeMillis() + "}");
+        }
+    }
+
+    /**
+     * Counts completed files, whose details are unknown.
+     *
+     * @param files the number of files
+     */
+    void filesCompleted(int files) {
+        int completed = completedFiles.addAndGet(files);
+        if (events != null) {
+            writeEvent("{\"event\":\"filesCompleted\",\"tool\":" + BenchmarkReport.quoteJson(tool) + ",\"files\":"
+                    + files + ",\"completed\":" + completed + ",\"total\":" + totalFiles + ",\"timestamp\":"
+                    + System.currentTimeMillis() + "}");
+        }
+    }
+
+    /**
+     * @param phase the current phase of the analysis, shown in the progress lines
+     */
+    void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    private synchronized void writeEvent(String event) {
+        if (finished) {
+            // a file of an abandoned analysis
+            return;
+        }
+        try {
+            events.write(event);
+            events.write('\n');
+        } catch (IOException e) {
+            LOG.warn("Unable to write the progress event: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the current progress, e.g.
+     *     <code>PMD: 1200/5000 files (24%), 85.3 files/s, ETA 0:44, heap 512 MB</code>
+     */
+    String formatProgress() {
+        int completed = Math.min(completedFiles.get(), totalFiles);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rate = seconds > 0 ? completed / seconds : 0;
+        StringBuilder line = new StringBuilder(tool);
+        if (phase != null) {
+            line.append(" (").append(phase).append(')');
+        }
+        line.append(": ").append(completed).append('/').append(totalFiles).append(" files");
+        if (totalFiles > 0) {
+            line.append(" (").append(completed * 100L / totalFiles).append("%)");
+        }
+        line.append(String.format(Locale.ROOT, ", %.1f files/s", rate));
+        if (rate > 0 && completed < totalFiles) {
+            long eta = Math.round((totalFiles - completed) / rate);
+            line.append(String.format(Locale.ROOT, ", ETA %d:%02d", eta / 60, eta % 60));
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long heap = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        return line.append(", heap ").append(heap).append(" MB").toString();
+    }
+
+    @Override
+    public void close() {
+        // the reporter is used by several analyses, see finish()
+    }
+
+    /**
+     * Stops the progress lines and closes the events file.
+     */
+    void finish() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (events != null) {
+            synchronized (this) {
+                finished = true;
+                try {
+                    events.close();
+                } catch (IOException e) {
+                    LOG.warn("Unable to close the progress events: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
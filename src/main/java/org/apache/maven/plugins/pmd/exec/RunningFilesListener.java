@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Counts the files, which are being analyzed. Every file occupies one analysis thread, so after an analysis
+ * has been given up, e.g. by <code>failFast</code> or the file timeout, this is the number of threads
+ * still running rules in the background.
+ */
+class RunningFilesListener implements GlobalAnalysisListener {
+    private int runningFiles;
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        synchronized (this) {
+            runningFiles++;
+        }
+        return new FileAnalysisListener() {
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                // only the files are counted
+            }
+
+            @Override
+            public void close() {
+                fileFinished();
+            }
+        };
+    }
+
+    private synchronized void fileFinished() {
+        runningFiles--;
+        notifyAll();
+    }
+
+    @Override
+    public void close() {
+        // nothing to do
+    }
+
+    /**
+     * Waits until no file is analyzed anymore.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the number of files, which are still being analyzed
+     * @throws InterruptedException if the thread has been interrupted
+     */
+    synchronized int awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (runningFiles > 0) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                break;
+            }
+            wait(remainingMillis);
+        }
+        return runningFiles;
+    }
+}
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.reporting.MavenReportException;
 import org.apache.maven.toolchain.Toolchain;
 import org.apache.maven.toolchain.ToolchainManager;
 import org.slf4j.Logger;
@@ -40,9 +41,33 @@ abstract class ServiceExecutor {
 
     private final Provider<MavenSession> sessionProvider;
 
-    protected ServiceExecutor(ToolchainManager toolchainManager, Provider<MavenSession> sessionProvider) {
+    private final AnalysisThreadBudget threadBudget;
+
+    protected ServiceExecutor(
+            ToolchainManager toolchainManager,
+            Provider<MavenSession> sessionProvider,
+            AnalysisThreadBudget threadBudget) {
         this.toolchainManager = toolchainManager;
         this.sessionProvider = sessionProvider;
+        this.threadBudget = threadBudget;
+    }
+
+    /**
+     * Takes threads for an analysis from the budget shared by all executions of the build.
+     *
+     * @param wanted the number of threads, <code>0</code> for as many as there are processors
+     * @return the lease, which must be closed after the analysis
+     * @throws MavenReportException if interrupted while waiting for a thread
+     */
+    protected final AnalysisThreadBudget.Lease acquireThreads(int wanted) throws MavenReportException {
+        try {
+            MavenSession session = sessionProvider.get();
+            int parallelModules = session != null ? session.getRequest().getDegreeOfConcurrency() : 1;
+            return threadBudget.acquire(wanted > 0 ? wanted : threadBudget.getSize(), parallelModules);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException("Interrupted while waiting for analysis threads", e);
+        }
     }
 
     protected final Toolchain getToolchain(Map<String, String> jdkToolchain) {
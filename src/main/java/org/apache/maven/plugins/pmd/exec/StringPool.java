@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deduplicates the strings of a result while it is loaded, e.g. the rule names, messages and paths,
+ * which repeat for many violations. Unlike {@link String#intern()}, the pool is dropped with the
+ * reader after the load. Not thread-safe.
+ *
+ * @since 3.28.1
+ */
+public final class StringPool {
+    private final Map<String, String> strings = new HashMap<>();
+
+    /**
+     * @param value the string, might be <code>null</code>
+     * @return the pooled string equal to the given one
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = strings.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * @return the number of distinct strings in the pool
+     */
+    public int size() {
+        return strings.size();
+    }
+}
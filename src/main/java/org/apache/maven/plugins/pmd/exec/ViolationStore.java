@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+
+import org.apache.maven.plugins.pmd.model.Violation;
+
+/**
+ * Stores violations column by column in arrays of <code>int</code>: the lines, the priorities and
+ * the ids of the strings (file name, rule, package, class, URL and message) in a shared string table.
+ * This needs a fraction of the heap of a list of {@link Violation} beans for large reports.
+ *
+ * <p>The beans are only created on access through a {@link ViolationList}, one at a time. Grouping
+ * by priority, sorting by file and line and counting work on the arrays. Not thread-safe.
+ *
+ * @since 3.28.1
+ */
+public final class ViolationStore {
+    private static final int NO_STRING = -1;
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    private final List<String> strings = new ArrayList<>();
+
+    private int size;
+
+    private int[] beginLines = new int[16];
+
+    private int[] endLines = new int[16];
+
+    private int[] priorities = new int[16];
+
+    private int[] fileNames = new int[16];
+
+    private int[] rules = new int[16];
+
+    private int[] packages = new int[16];
+
+    private int[] classes = new int[16];
+
+    private int[] externalInfoUrls = new int[16];
+
+    private int[] texts = new int[16];
+
+    /**
+     * @param violations the violations, either a view of a store or beans
+     * @return the violations as a view of a store, the given one or a copy of the beans into a new store
+     */
+    public static ViolationList toList(Collection<Violation> violations) {
+        if (violations instanceof ViolationList) {
+            return (ViolationList) violations;
+        }
+        ViolationStore store = new ViolationStore();
+        for (Violation violation : violations) {
+            store.add(violation);
+        }
+        return store.asList();
+    }
+
+    /**
+     * @param violation the violation to copy into the store
+     */
+    public void add(Violation violation) {
+        add(
+                violation.getBeginline(),
+                violation.getEndline(),
+                violation.getPriority(),
+                violation.getFileName(),
+                violation.getRule(),
+                violation.getViolationPackage(),
+                violation.getViolationClass(),
+                violation.getExternalInfoUrl(),
+                violation.getText());
+    }
+
+    void add(
+            int beginLine,
+            int endLine,
+            int priority,
+            String fileName,
+            String rule,
+            String violationPackage,
+            String violationClass,
+            String externalInfoUrl,
+            String text) {
+        if (size == beginLines.length) {
+            int capacity = size + (size >> 1);
+            beginLines = Arrays.copyOf(beginLines, capacity);
+            endLines = Arrays.copyOf(endLines, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            fileNames = Arrays.copyOf(fileNames, capacity);
+            rules = Arrays.copyOf(rules, capacity);
+            packages = Arrays.copyOf(packages, capacity);
+            classes = Arrays.copyOf(classes, capacity);
+            externalInfoUrls = Arrays.copyOf(externalInfoUrls, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        beginLines[size] = beginLine;
+        endLines[size] = endLine;
+        priorities[size] = priority;
+        fileNames[size] = getStringId(fileName);
+        rules[size] = getStringId(rule);
+        packages[size] = getStringId(violationPackage);
+        classes[size] = getStringId(violationClass);
+        externalInfoUrls[size] = getStringId(externalInfoUrl);
+        texts[size] = getStringId(text);
+        size++;
+    }
+
+    private int getStringId(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    private String getString(int id) {
+        return id == NO_STRING ? null : strings.get(id);
+    }
+
+    /**
+     * @return the number of violations
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getBeginline(int index) {
+        return beginLines[checkIndex(index)];
+    }
+
+    public int getPriority(int index) {
+        return priorities[checkIndex(index)];
+    }
+
+    public String getFileName(int index) {
+        return getString(fileNames[checkIndex(index)]);
+    }
+
+    public String getViolationPackage(int index) {
+        return getString(packages[checkIndex(index)]);
+    }
+
+    /**
+     * @param index the index of the violation
+     * @param fileName the new file name, e.g. shortened for logging
+     */
+    public void setFileName(int index, String fileName) {
+        fileNames[checkIndex(index)] = getStringId(fileName);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return index;
+    }
+
+    /**
+     * @param index the index of the violation
+     * @return a new bean with the data of the violation
+     */
+    public Violation get(int index) {
+        checkIndex(index);
+        Violation violation = new Violation();
+        violation.setBeginline(beginLines[index]);
+        violation.setEndline(endLines[index]);
+        violation.setPriority(priorities[index]);
+        violation.setFileName(getString(fileNames[index]));
+        violation.setRule(getString(rules[index]));
+        violation.setViolationPackage(getString(packages[index]));
+        violation.setViolationClass(getString(classes[index]));
+        violation.setExternalInfoUrl(getString(externalInfoUrls[index]));
+        violation.setText(getString(texts[index]));
+        return violation;
+    }
+
+    /**
+     * @return the number of violations by priority, the index of the array is the priority.
+     *     Negative priorities are counted as <code>0</code>.
+     */
+    public int[] countByPriority() {
+        int maxPriority = 5;
+        for (int i = 0; i < size; i++) {
+            maxPriority = Math.max(maxPriority, priorities[i]);
+        }
+        int[] counts = new int[maxPriority + 1];
+        for (int i = 0; i < size; i++) {
+            counts[Math.max(priorities[i], 0)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * @return all violations in the order they have been added
+     */
+    public ViolationList asList() {
+        return new ViolationList(null, size);
+    }
+
+    /**
+     * @param indexes the indexes of the violations in the store
+     * @param count the number of indexes used
+     * @return the given violations in the given order
+     */
+    public ViolationList select(int[] indexes, int count) {
+        return new ViolationList(Arrays.copyOf(indexes, count), count);
+    }
+
+    /**
+     * A read-only view of violations of the store. The beans are created on every access.
+     */
+    public final class ViolationList extends AbstractList<Violation> implements RandomAccess {
+        /**
+         * The indexes in the store or <code>null</code> for the first <code>size</code> violations.
+         */
+        private final int[] indexes;
+
+        private final int size;
+
+        private ViolationList(int[] indexes, int size) {
+            this.indexes = indexes;
+            this.size = size;
+        }
+
+        private int indexInStore(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return indexes != null ? indexes[index] : index;
+        }
+
+        @Override
+        public Violation get(int index) {
+            return ViolationStore.this.get(indexInStore(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the store of the violations
+         */
+        public ViolationStore getStore() {
+            return ViolationStore.this;
+        }
+
+        /**
+         * @param priorities the priorities to keep
+         * @return the violations with one of the given priorities, in the order of this list
+         */
+        public ViolationList withPriority(IntPredicate priorities) {
+            int[] selected = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int index = indexInStore(i);
+                if (priorities.test(ViolationStore.this.priorities[index])) {
+                    selected[count++] = index;
+                }
+            }
+            return new ViolationList(Arrays.copyOf(selected, count), count);
+        }
+
+        /**
+         * Sorts by file name and begin line. The order of violations in the same line is kept.
+         *
+         * @return the sorted violations
+         */
+        public ViolationList sortedByFileAndLine() {
+            // rank the distinct file names, null first
+            int[] fileRanks = new int[strings.size()];
+            List<Integer> distinctFiles = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                int fileName = fileNames[indexInStore(i)];
+                if (fileName != NO_STRING && fileRanks[fileName] == 0) {
+                    fileRanks[fileName] = -1;
+                    distinctFiles.add(fileName);
+                }
+            }
+            distinctFiles.sort((a, b) -> strings.get(a).compareTo(strings.get(b)));
+            for (int rank = 0; rank < distinctFiles.size(); rank++) {
+                fileRanks[distinctFiles.get(rank)] = rank + 1;
+            }
+
+            // counting sort by file, which keeps the order within a file
+            int[] starts = new int[distinctFiles.size() + 2];
+            for (int i = 0; i < size; i++) {
+                starts[getFileRank(fileRanks, i) + 1]++;
+            }
+            for (int rank = 1; rank < starts.length; rank++) {
+                starts[rank] += starts[rank - 1];
+            }
+            int[] positions = new int[size];
+            int[] next = Arrays.copyOf(starts, starts.length);
+            for (int i = 0; i < size; i++) {
+                positions[next[getFileRank(fileRanks, i)]++] = i;
+            }
+
+            // sort every file by line, the position in this list breaks ties
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) beginLines[indexInStore(positions[i])] << 32) | positions[i];
+            }
+            for (int rank = 0; rank < starts.length - 1; rank++) {
+                Arrays.sort(keys, starts[rank], starts[rank + 1]);
+            }
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = indexInStore((int) keys[i]);
+            }
+            return new ViolationList(sorted, size);
+        }
+
+        private int getFileRank(int[] fileRanks, int position) {
+            int fileName = fileNames[indexInStore(position)];
+            return fileName == NO_STRING ? 0 : fileRanks[fileName];
+        }
+    }
+}
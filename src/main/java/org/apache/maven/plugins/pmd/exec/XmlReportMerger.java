@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Comment;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Merges several XML reports of PMD or CPD into one report.
+ *
+ * <p>The root element of the first report is used for the merged report. The children of the
+ * root elements are grouped by their name in the given order, within a group they keep the
+ * order of the reports. The reports are streamed, once per group, so that the memory needed
+ * doesn't depend on the size of the reports. Comments following the root elements, like the marker
+ * of a truncated report (see {@link PmdExecutor#TRUNCATED_MARKER}), are kept once.
+ */
+public class XmlReportMerger {
+    /**
+     * The order of the elements in a PMD report, as written by PMD's <code>XMLRenderer</code>.
+     */
+    public static final List<String> PMD_ELEMENTS = Arrays.asList("file", "error", "suppressedviolation", "configerror");
+
+    /**
+     * The order of the elements in a CPD report, as written by CPD's <code>XMLRenderer</code>.
+     */
+    public static final List<String> CPD_ELEMENTS = Arrays.asList("file", "duplication", "error");
+
+    private final XMLInputFactory inputFactory;
+
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    private final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+    private final List<String> elementOrder;
+
+    /**
+     * @param elementOrder the names of the elements below the root element in the order they should appear
+     *     in the merged report. Other elements are appended at the end.
+     */
+    public XmlReportMerger(List<String> elementOrder) {
+        this.elementOrder = elementOrder;
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Merges the reports.
+     *
+     * @param reports the reports to merge, at least one
+     * @param target the merged report
+     * @param encoding the encoding of the merged report
+     * @throws IOException if a report can't be read or written
+     */
+    public void merge(List<File> reports, File target, String encoding) throws IOException {
+        StartElement root = readRootElement(reports.get(0));
+        try (OutputStream out = Files.newOutputStream(target.toPath())) {
+            XMLEventWriter writer = outputFactory.createXMLEventWriter(out, encoding);
+            writer.add(eventFactory.createStartDocument(encoding, "1.0"));
+            writer.add(eventFactory.createCharacters("\n"));
+            writer.add(root);
+            writer.add(eventFactory.createCharacters("\n"));
+            for (String name : elementOrder) {
+                for (File report : reports) {
+                    copyElements(report, writer, name::equals, null);
+                }
+            }
+            Set<String> trailingComments = new LinkedHashSet<>();
+            for (File report : reports) {
+                copyElements(report, writer, name -> !elementOrder.contains(name), trailingComments);
+            }
+            writer.add(eventFactory.createEndElement(root.getName(), root.getNamespaces()));
+            writer.add(eventFactory.createCharacters("\n"));
+            for (String comment : trailingComments) {
+                writer.add(eventFactory.createComment(comment));
+                writer.add(eventFactory.createCharacters("\n"));
+            }
+            writer.add(eventFactory.createEndDocument());
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to merge reports into " + target + ": " + e.getMessage(), e);
+        }
+    }
+
+    private StartElement readRootElement(File report) throws IOException {
+        try (InputStream in = Files.newInputStream(report.toPath())) {
+            XMLEventReader reader = inputFactory.createXMLEventReader(in);
+            try {
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartElement()) {
+                        return event.asStartElement();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to read report " + report + ": " + e.getMessage(), e);
+        }
+        throw new IOException("Report " + report + " is empty");
+    }
+
+    /**
+     * Copies the matching children of the root element.
+     *
+     * @param trailingComments collects the comments following the root element, might be <code>null</code>
+     */
+    private void copyElements(
+            File report, XMLEventWriter writer, Predicate<String> names, Set<String> trailingComments)
+            throws IOException {
+        try (InputStream in = Files.newInputStream(report.toPath())) {
+            XMLEventReader reader = inputFactory.createXMLEventReader(in);
+            try {
+                int depth = 0;
+                boolean copying = false;
+                boolean rootEnded = false;
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (rootEnded && trailingComments != null && event.getEventType() == XMLEvent.COMMENT) {
+                        trailingComments.add(((Comment) event).getText());
+                    }
+                    if (event.isStartElement()) {
+                        depth++;
+                        if (depth == 2) {
+                            copying = names.test(event.asStartElement().getName().getLocalPart());
+                        }
+                    }
+                    if (copying) {
+                        writer.add(event);
+                    }
+                    if (event.isEndElement()) {
+                        if (depth == 2 && copying) {
+                            writer.add(eventFactory.createCharacters("\n"));
+                            copying = false;
+                        }
+                        depth--;
+                        rootEnded = depth == 0;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to read report " + report + ": " + e.getMessage(), e);
+        }
+    }
+}
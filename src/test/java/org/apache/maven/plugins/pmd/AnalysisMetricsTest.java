@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnalysisMetricsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        Map<String, String> labels = AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a\"b", "goal", "pmd");
+        metrics.add(AnalysisMetrics.Metric.FILES_ANALYZED, labels, 42);
+        metrics.add(
+                AnalysisMetrics.Metric.PHASE_DURATION,
+                AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a\"b", "goal", "pmd", "phase", "analysis"),
+                1.5);
+
+        File file = tempDir.resolve("pmd-metrics.prom").toFile();
+        metrics.write(file);
+
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.contains("# TYPE pmd_files_analyzed gauge\n"));
+        assertTrue(content.contains("pmd_files_analyzed{module=\"a\\\"b\",goal=\"pmd\"} 42\n"));
+        assertTrue(content.contains("# UNIT pmd_phase_duration_seconds seconds\n"));
+        assertTrue(content.endsWith("# EOF\n"));
+
+        AnalysisMetrics read = AnalysisMetrics.read(file);
+        assertEquals(42.0, read.get(AnalysisMetrics.Metric.FILES_ANALYZED, labels));
+        assertEquals(
+                1.5,
+                read.get(
+                        AnalysisMetrics.Metric.PHASE_DURATION,
+                        AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a\"b", "goal", "pmd", "phase", "analysis")));
+    }
+
+    @Test
+    public void testRollUp() {
+        AnalysisMetrics first = new AnalysisMetrics();
+        first.add(AnalysisMetrics.Metric.FILES_ANALYZED, AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a"), 10);
+        first.add(AnalysisMetrics.Metric.HEAP_PEAK, AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a"), 100);
+        first.add(
+                AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_LOOKUPS,
+                AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a"),
+                2);
+        first.add(
+                AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_HITS,
+                AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a"),
+                1);
+        AnalysisMetrics second = new AnalysisMetrics();
+        second.add(AnalysisMetrics.Metric.FILES_ANALYZED, AnalysisMetrics.labels(AnalysisMetrics.MODULE, "b"), 5);
+        second.add(AnalysisMetrics.Metric.HEAP_PEAK, AnalysisMetrics.labels(AnalysisMetrics.MODULE, "b"), 300);
+        second.add(
+                AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_LOOKUPS,
+                AnalysisMetrics.labels(AnalysisMetrics.MODULE, "b"),
+                1);
+        second.add(
+                AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_HITS,
+                AnalysisMetrics.labels(AnalysisMetrics.MODULE, "b"),
+                0);
+
+        AnalysisMetrics reactor = AnalysisMetrics.rollUp(Arrays.asList(first, second));
+
+        Map<String, String> noLabels = AnalysisMetrics.labels();
+        assertEquals(15.0, reactor.get(AnalysisMetrics.Metric.FILES_ANALYZED, noLabels));
+        assertEquals(300.0, reactor.get(AnalysisMetrics.Metric.HEAP_PEAK, noLabels));
+        assertEquals(3.0, reactor.get(AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_LOOKUPS, noLabels));
+        assertEquals(1.0, reactor.get(AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_HITS, noLabels));
+    }
+
+    @Test
+    public void testWriteCounters() throws IOException {
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        Map<String, String> labels = AnalysisMetrics.labels(AnalysisMetrics.MODULE, "a", "goal", "pmd");
+        metrics.add(AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_LOOKUPS, labels, 1);
+
+        File file = tempDir.resolve("pmd-metrics.prom").toFile();
+        Files.write(file.toPath(), "outdated".getBytes(StandardCharsets.UTF_8));
+        metrics.write(file);
+
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("# TYPE pmd_file_discovery_cache_lookups counter\n"));
+        assertTrue(content.contains("pmd_file_discovery_cache_lookups_total{module=\"a\",goal=\"pmd\"} 1\n"));
+        assertEquals(1.0, AnalysisMetrics.read(file).get(AnalysisMetrics.Metric.FILE_DISCOVERY_CACHE_LOOKUPS, labels));
+        // the temporary file has replaced the file
+        assertArrayEquals(new String[] {"pmd-metrics.prom"}, tempDir.toFile().list());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class CanonicalPathCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testMatchesGetCanonicalFile() throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve("a/b"));
+        File file = Files.createFile(dir.resolve("Foo.java")).toFile();
+        File indirect = new File(tempDir.toFile(), "a/../a/b/./Foo.java");
+
+        CanonicalPathCache cache = new CanonicalPathCache();
+        assertEquals(file.getCanonicalFile(), cache.getCanonicalFile(file));
+        assertEquals(file.getCanonicalFile(), cache.getCanonicalFile(indirect));
+        assertEquals(dir.toFile().getCanonicalFile(), cache.getCanonicalFile(new File(dir.toFile(), ".")));
+    }
+
+    @Test
+    public void testResolvesLinkedFiles() throws IOException {
+        Path target = Files.createFile(tempDir.resolve("Target.java"));
+        Path link;
+        try {
+            link = Files.createSymbolicLink(tempDir.resolve("Link.java"), target);
+        } catch (UnsupportedOperationException | IOException e) {
+            link = null;
+        }
+        assumeTrue(link != null, "symbolic links not supported");
+
+        CanonicalPathCache cache = new CanonicalPathCache();
+        assertEquals(target.toFile().getCanonicalFile(), cache.getCanonicalFile(link.toFile()));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class FileSetCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testEntryIsInvalidatedByDirectoryChange() throws IOException {
+        FileTime old = FileTime.from(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1), TimeUnit.MILLISECONDS);
+        Files.setLastModifiedTime(tempDir, old);
+
+        FileSetCache cache = FileSetCache.getInstance(new HashMap<>());
+        Map<File, PmdFileInfo> files = Collections.emptyMap();
+        cache.put(
+                "key",
+                files,
+                Collections.<SkippedFile>emptyList(),
+                Collections.singletonMap(tempDir, old),
+                System.currentTimeMillis());
+
+        assertSame(files, cache.get("key").getFiles());
+        assertNull(cache.get("other key"));
+
+        Files.createFile(tempDir.resolve("New.java"));
+        Files.setLastModifiedTime(tempDir, FileTime.fromMillis(old.toMillis() + 1000L));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void testRecentlyModifiedDirectoriesAreNotCached() {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+
+        FileSetCache cache = FileSetCache.getInstance(new HashMap<>());
+        cache.put(
+                "key",
+                Collections.<File, PmdFileInfo>emptyMap(),
+                Collections.<SkippedFile>emptyList(),
+                Collections.singletonMap(tempDir, now),
+                now.toMillis());
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void testRecentModificationsAreCachedWithFineTimestamps() throws IOException {
+        long scanStart = System.currentTimeMillis();
+        // a millisecond fraction: the file system has a fine timestamp granularity
+        FileTime modified = FileTime.fromMillis(scanStart - scanStart % 1000L - 1001L);
+        Files.setLastModifiedTime(tempDir, modified);
+        modified = Files.getLastModifiedTime(tempDir);
+
+        FileSetCache cache = FileSetCache.getInstance(new HashMap<>());
+        Map<File, PmdFileInfo> files = Collections.emptyMap();
+        cache.put(
+                "key",
+                files,
+                Collections.<SkippedFile>emptyList(),
+                Collections.singletonMap(tempDir, modified),
+                scanStart);
+
+        assertSame(files, cache.get("key").getFiles());
+    }
+
+    @Test
+    public void testTimestampGranularity() {
+        assertEquals(
+                2000L,
+                FileSetCache.getTimestampGranularityMillis(
+                        Arrays.asList(FileTime.fromMillis(4000L), FileTime.fromMillis(10000L))));
+        assertEquals(
+                1000L,
+                FileSetCache.getTimestampGranularityMillis(
+                        Arrays.asList(FileTime.fromMillis(4000L), FileTime.fromMillis(11000L))));
+        assertEquals(
+                1L,
+                FileSetCache.getTimestampGranularityMillis(
+                        Arrays.asList(FileTime.fromMillis(4000L), FileTime.fromMillis(11001L))));
+    }
+
+    @Test
+    public void testSharedViaPluginContext() {
+        Map<Object, Object> pluginContext = new HashMap<>();
+        assertSame(FileSetCache.getInstance(pluginContext), FileSetCache.getInstance(pluginContext));
+        assertNull(FileSetCache.getInstance(null));
+    }
+}
@@ -232,6 +232,38 @@ public class PmdReportTest {
         assertTrue(cacheFile.exists());
     }
 
+    @Basedir("/unit/default-configuration")
+    @InjectMojo(goal = "pmd", pom = "pmd-rule-cost-profile-plugin-config.xml")
+    @MojoParameter(name = "siteDirectory", value = "src/site")
+    @Test
+    public void testRuleCostProfileWithoutAnalysisCache(PmdReport mojo) throws Exception {
+        mojo.execute();
+
+        File profile = new File(
+                getBasedir(), "target/test/unit/pmd-rule-cost-profile-plugin-config/target/pmd-rule-costs.properties");
+        assertTrue(profile.exists());
+
+        // every file has been analyzed, so the cache has not been used
+        File cacheFile =
+                new File(getBasedir(), "target/test/unit/pmd-rule-cost-profile-plugin-config/target/pmd/pmd.cache");
+        assertFalse(cacheFile.exists());
+        assertTrue(CapturingPrintStream.getOutput().contains("Not using the analysis cache"));
+    }
+
+    @Basedir("/unit/default-configuration")
+    @InjectMojo(goal = "pmd", pom = "pmd-largest-files-first-plugin-config.xml")
+    @MojoParameter(name = "siteDirectory", value = "src/site")
+    @Test
+    public void testLargestFilesFirstWithAnalysisCache(PmdReport mojo) throws Exception {
+        mojo.execute();
+
+        File targetDir = new File(getBasedir(), "target/test/unit/pmd-largest-files-first-plugin-config/target");
+        assertTrue(new File(targetDir, "pmd/pmd.cache").exists());
+        assertTrue(new File(targetDir, "pmd/pmd-file-timings.txt").exists());
+        assertTrue(CapturingPrintStream.getOutput()
+                .contains("Not analyzing the most expensive files separately, as the analysis cache is enabled"));
+    }
+
     @Basedir("/unit/default-configuration")
     @InjectMojo(goal = "pmd", pom = "javascript-configuration-plugin-config.xml")
     @MojoParameter(name = "siteDirectory", value = "src/site")
@@ -698,6 +730,24 @@ public class PmdReportTest {
         assertTrue(html.contains("at line 23, column 5: Encountered"));
     }
 
+    @Basedir("/unit/processing-error")
+    @InjectMojo(goal = "pmd", pom = "pmd-processing-error-skip-plugin-config.xml")
+    @MojoParameter(name = "siteDirectory", value = "src/site")
+    @MojoParameter(name = "maxProcessingErrorDetails", value = "0")
+    @Test
+    public void testPMDProcessingErrorWithDetailsOmitted(PmdReport mojo) throws Exception {
+        mojo.execute();
+
+        File generatedReport = new File(mojo.getReportOutputDirectory(), mojo.getOutputPath() + ".html");
+        assertTrue(generatedReport.exists());
+
+        // the stack trace is dropped, but the HTML report tells so
+        String html = readFile(generatedReport);
+        assertTrue(html.contains("ParseException:"));
+        assertFalse(html.contains("net.sourceforge.pmd.lang.ast.ParseException"));
+        assertTrue(html.contains("1 further stack traces omitted, see the parameter maxProcessingErrorDetails"));
+    }
+
     @Basedir("/unit/processing-error")
     @InjectMojo(goal = "pmd", pom = "pmd-processing-error-no-report-plugin-config.xml")
     @MojoParameter(name = "siteDirectory", value = "src/site")
@@ -795,6 +845,28 @@ public class PmdReportTest {
         assertEquals(4, StringUtils.countMatches(str, "\">UnusedPrivateField</a></td>"));
     }
 
+    @Basedir("/unit/default-configuration")
+    @InjectMojo(goal = "pmd", pom = "pmd-check-only-plugin-config.xml")
+    @MojoParameter(name = "siteDirectory", value = "src/site")
+    @Test
+    public void testCheckOnly(PmdReport mojo) throws Exception {
+        mojo.execute();
+
+        // only the rules with a priority up to failurePriority have been evaluated
+        File generatedFile = new File(getBasedir(), "target/test/unit/pmd-check-only/target/pmd.xml");
+        assertTrue(generatedFile.exists());
+        String str = readFile(generatedFile);
+        assertTrue(str.contains("rule=\"CustomRule\""));
+        assertFalse(str.contains("UnusedPrivateField"));
+
+        // neither the format report nor the HTML report have been written
+        assertFalse(new File(getBasedir(), "target/test/unit/pmd-check-only/target/pmd.csv").exists());
+        assertFalse(new File(mojo.getReportOutputDirectory(), mojo.getOutputPath() + ".html").exists());
+
+        String output = CapturingPrintStream.getOutput();
+        assertTrue(output.contains("Evaluating only the rules with a priority up to 1 for the check"));
+    }
+
     @Basedir("/unit/default-configuration")
     @InjectMojo(goal = "pmd", pom = "pmd-report-resolve-rulesets.xml")
     @MojoParameter(name = "siteDirectory", value = "src/site")
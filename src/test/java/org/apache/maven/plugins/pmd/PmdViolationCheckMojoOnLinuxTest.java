@@ -18,15 +18,23 @@
  */
 package org.apache.maven.plugins.pmd;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.apache.maven.api.plugin.testing.Basedir;
 import org.apache.maven.api.plugin.testing.InjectMojo;
 import org.apache.maven.api.plugin.testing.MojoParameter;
 import org.apache.maven.api.plugin.testing.MojoTest;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.pmd.exec.PmdExecutor;
 import org.apache.maven.project.MavenProject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.io.TempDir;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.condition.OS.LINUX;
@@ -141,4 +149,24 @@ public class PmdViolationCheckMojoOnLinuxTest {
         // this call shouldn't throw an exception, as the classes with violations have been excluded
         mojo.execute();
     }
+
+    @Test
+    public void testTruncatedMarkerInReportEncoding(@TempDir Path tempDir) throws IOException {
+        String report = "<?xml version=\"1.0\" encoding=\"UTF-16\"?>\n<pmd version=\"7\">\n</pmd>\n";
+        File complete = tempDir.resolve("complete.xml").toFile();
+        Files.write(complete.toPath(), report.getBytes("UTF-16"));
+        assertFalse(AbstractPmdViolationCheckMojo.isTruncated(complete));
+
+        File truncated = tempDir.resolve("truncated.xml").toFile();
+        Files.write(truncated.toPath(), (report + PmdExecutor.TRUNCATED_MARKER + "\n").getBytes("UTF-16"));
+        assertTrue(AbstractPmdViolationCheckMojo.isTruncated(truncated));
+
+        File utf8 = tempDir.resolve("utf8.xml").toFile();
+        Files.write(
+                utf8.toPath(),
+                ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<pmd version=\"7\">\u00e4</pmd>\n"
+                                + PmdExecutor.TRUNCATED_MARKER)
+                        .getBytes("UTF-8"));
+        assertTrue(AbstractPmdViolationCheckMojo.isTruncated(utf8));
+    }
 }
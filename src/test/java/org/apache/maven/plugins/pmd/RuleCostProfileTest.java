@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.plugins.pmd.exec.BenchmarkReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RuleCostProfileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCreateWriteAndRead() throws IOException {
+        File csv = tempDir.resolve("pmd-timings.csv").toFile();
+        Files.write(
+                csv.toPath(),
+                Arrays.asList(
+                        "type,module,name,totalNanos,selfNanos,count",
+                        "phase,,Rule evaluation,9000000000,1000000,1",
+                        "rule,,ExpensiveRule,9000000000,8000000000,10",
+                        "rule,,CheapRule,1000000000,40000000,10"),
+                StandardCharsets.UTF_8);
+
+        // 2000 lines: 8000 ms and 40 ms become 4000 ms and 20 ms per 1000 lines
+        RuleCostProfile profile = RuleCostProfile.create(BenchmarkReport.readCsv(csv), 2000);
+        assertEquals(4000.0, profile.getCosts().get("ExpensiveRule"), 0.001);
+        assertEquals(20.0, profile.getCosts().get("CheapRule"), 0.001);
+        assertEquals(2, profile.getCosts().size());
+
+        File file = tempDir.resolve("pmd-rule-costs.properties").toFile();
+        profile.write(file);
+        RuleCostProfile read = RuleCostProfile.read(file);
+
+        assertEquals(profile.getCosts(), read.getCosts());
+        assertEquals(Collections.singleton("ExpensiveRule"), read.getRulesAbove(100));
+        assertEquals(Collections.emptySet(), read.getRulesAbove(5000));
+    }
+
+    @Test
+    public void testCountLines() throws IOException {
+        File withNewline = Files.write(tempDir.resolve("A.java"), "a\nb\n".getBytes(StandardCharsets.UTF_8))
+                .toFile();
+        File withoutNewline = Files.write(tempDir.resolve("B.java"), "a\nb\nc".getBytes(StandardCharsets.UTF_8))
+                .toFile();
+        File empty = Files.write(tempDir.resolve("C.java"), new byte[0]).toFile();
+
+        assertEquals(5, RuleCostProfile.countLines(Arrays.asList(withNewline, withoutNewline, empty)));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardTest {
+    @Test
+    public void testParse() {
+        Shard shard = Shard.parse("2/4");
+        assertEquals(2, shard.getIndex());
+        assertEquals(4, shard.getCount());
+        assertEquals("shard-2-of-4", shard.getDirectoryName());
+
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("2"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("0/4"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("5/4"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("a/4"));
+    }
+
+    @Test
+    public void testEveryFileInOneShard() {
+        File root = new File("src/main/java");
+        for (int i = 0; i < 50; i++) {
+            File file = new File(root, "org/example/p" + i + "/A.java");
+            int matches = 0;
+            for (int index = 1; index <= 3; index++) {
+                if (new Shard(index, 3).contains(file, root)) {
+                    matches++;
+                }
+            }
+            assertEquals(1, matches, file.getPath());
+        }
+    }
+
+    @Test
+    public void testPackagesStayTogetherOnEveryNode() {
+        File root = new File("src/main/java");
+        File otherCheckout = new File("/other/checkout/src/main/java");
+        for (int index = 1; index <= 4; index++) {
+            Shard shard = new Shard(index, 4);
+            for (int i = 0; i < 20; i++) {
+                String directory = "org/example/p" + i + "/";
+                boolean selected = shard.contains(new File(root, directory + "A.java"), root);
+                assertEquals(selected, shard.contains(new File(root, directory + "B.java"), root));
+                assertEquals(selected, shard.contains(new File(otherCheckout, directory + "A.java"), otherCheckout));
+            }
+        }
+    }
+
+    @Test
+    public void testPackageDirectory() {
+        File root = new File("src/main/java");
+        assertEquals("/org/example", Shard.getPackageDirectory(new File(root, "org/example/A.java"), root));
+        assertEquals("", Shard.getPackageDirectory(new File(root, "A.java"), root));
+
+        // a sibling directory with the same prefix isn't in the source directory
+        File sibling = new File("src/main/javadoc/org/example/A.java");
+        assertEquals(
+                sibling.getParentFile().getAbsolutePath().replace(File.separatorChar, '/'),
+                Shard.getPackageDirectory(sibling, root));
+
+        File fileSystemRoot = new File(File.separator);
+        assertEquals(
+                "/org/example",
+                Shard.getPackageDirectory(new File(fileSystemRoot, "org/example/A.java"), fileSystemRoot));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SourceFileFilterTest {
+    @TempDir
+    Path tempDir;
+
+    private String getSkipReason(SourceFileFilter filter, String content) throws IOException {
+        Path file = tempDir.resolve("Test.java");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return filter.getSkipReason(file, Files.size(file));
+    }
+
+    @Test
+    public void testMaxFileSize() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(10, 0, false);
+        assertNull(getSkipReason(filter, "class A {}"));
+        assertEquals(SourceFileFilter.REASON_SIZE, getSkipReason(filter, "class AB {}"));
+    }
+
+    @Test
+    public void testMaxFileLines() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(0, 3, false);
+        assertNull(getSkipReason(filter, "1\n2\n3\n"));
+        assertNull(getSkipReason(filter, "1\n2\n3"));
+        assertEquals(SourceFileFilter.REASON_LINES, getSkipReason(filter, "1\n2\n3\n4"));
+        assertEquals(SourceFileFilter.REASON_LINES, getSkipReason(filter, "1\n2\n3\n4\n"));
+
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            large.append("// line ").append(i).append('\n');
+        }
+        assertNull(getSkipReason(new SourceFileFilter(0, 100_000, false), large.toString()));
+        assertEquals(
+                SourceFileFilter.REASON_LINES,
+                getSkipReason(new SourceFileFilter(0, 99_999, false), large.toString()));
+    }
+
+    @Test
+    public void testGeneratedFiles() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(0, 0, true);
+        assertNull(getSkipReason(filter, "package a;\nclass A {}\n"));
+        assertEquals(
+                SourceFileFilter.REASON_GENERATED,
+                getSkipReason(filter, "// Generated by the protocol buffer compiler.  DO NOT EDIT!\nclass A {}\n"));
+        assertEquals(
+                SourceFileFilter.REASON_GENERATED,
+                getSkipReason(filter, "package a;\n@javax.annotation.Generated(\"jOOQ\")\nclass A {}\n"));
+        assertEquals(SourceFileFilter.REASON_GENERATED, getSkipReason(filter, "@Generated\nclass A {}\n"));
+        assertEquals(
+                SourceFileFilter.REASON_GENERATED,
+                getSkipReason(filter, "/*\n * This file is auto-generated.\n */\npackage a;\nclass A {}\n"));
+    }
+
+    @Test
+    public void testGeneratedValueIsNoMarker() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(0, 0, true);
+        assertNull(getSkipReason(
+                filter,
+                "package a;\nimport javax.persistence.GeneratedValue;\n@Entity\nclass A {\n"
+                        + "    @Id @GeneratedValue\n    Long id;\n}\n"));
+    }
+
+    @Test
+    public void testGeneratedInStringsCommentsAndImportsIsNoMarker() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(0, 0, true);
+        // a generator emitting the annotation
+        assertNull(getSkipReason(
+                filter,
+                "package a;\n@Template(\"@Generated(\\\"a\\\")\")\nclass Generator {\n"
+                        + "    static final String ANNOTATION = \"@Generated\";\n}\n"));
+        assertNull(getSkipReason(
+                filter,
+                "package a;\nimport javax.annotation.processing.Generated;\n"
+                        + "/** Adds {@link javax.annotation.processing.Generated} to the sources. */\n"
+                        + "class Processor {\n    @Generated\n    void method() {}\n}\n"));
+    }
+
+    @Test
+    public void testDeclarationHead() {
+        assertEquals(
+                "package a;\n \n \n@A(\"\") @B('') @C(\"\") ",
+                SourceFileFilter.getDeclarationHead(
+                        "package a;\n// @X\n/* @Y */\n@A(\"@Z\\\"\") @B('\\'') @C(\"\"\"\n@W\"\"\") class A {}"));
+        assertEquals("package record;", SourceFileFilter.getDeclarationHead("package record;"));
+    }
+
+    @Test
+    public void testMarkersOutsideOfTheHeaderComment() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(0, 0, true);
+        assertNull(getSkipReason(
+                filter,
+                "// Copyright header\npackage a;\nclass A {\n"
+                        + "    // do not edit, this value is auto-generated by the release script\n"
+                        + "    static final String VERSION = \"1.0\";\n}\n"));
+    }
+
+    @Test
+    public void testHeaderComment() {
+        assertEquals("", SourceFileFilter.getHeaderComment("package a;\n// comment\n"));
+        assertEquals(
+                "// one\n  /* two */",
+                SourceFileFilter.getHeaderComment("// one\n  /* two */ package a;\n// three\n"));
+        assertEquals("/* unterminated", SourceFileFilter.getHeaderComment("/* unterminated"));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceFileScannerTest {
+    @TempDir
+    Path tempDir;
+
+    private File createFile(String relativePath) throws IOException {
+        Path file = tempDir.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[0]);
+        return file.toRealPath().toFile();
+    }
+
+    private List<File> scan(List<String> includes, List<String> excludes) throws IOException {
+        SourceFileScanner scanner = new SourceFileScanner(includes, excludes, new CanonicalPathCache());
+        List<File> files = new ArrayList<>(scanner.scan(Collections.singletonList(
+                        tempDir.toRealPath().toFile()))
+                .get(0));
+        Collections.sort(files);
+        return files;
+    }
+
+    @Test
+    public void testIncludesAndExcludes() throws IOException {
+        File app = createFile("App.java");
+        File sample = createFile("sample/Sample.java");
+        File nested = createFile("sample/nested/Nested.java");
+        createFile("sample/readme.txt");
+        createFile("generated/Generated.java");
+        createFile(".git/Hidden.java");
+
+        List<String> excludes = new ArrayList<>(FileUtils.getDefaultExcludesAsList());
+        excludes.add("generated/**");
+
+        assertEquals(Arrays.asList(app, sample, nested), scan(Collections.singletonList("**/*.java"), excludes));
+    }
+
+    @Test
+    public void testExcludeWithoutWildcardSuffixStillWalksSubdirectories() throws IOException {
+        createFile("gen/Excluded.java");
+        File included = createFile("gen/sub/Included.java");
+
+        assertEquals(
+                Collections.singletonList(included),
+                scan(Collections.singletonList("**/*.java"), Collections.singletonList("**/gen/*")));
+    }
+
+    @Test
+    public void testIncludesRestrictWalkedDirectories() throws IOException {
+        File included = createFile("a/b/Included.java");
+        createFile("c/Other.java");
+
+        assertEquals(
+                Collections.singletonList(included),
+                scan(Collections.singletonList("a/**/*.java"), Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testFileTimestampsRecordedForFilteredFiles() throws IOException {
+        File app = createFile("App.java");
+
+        SourceFileScanner scanner = new SourceFileScanner(
+                Collections.singletonList("**/*.java"), Collections.<String>emptyList(), new CanonicalPathCache());
+        scanner.scan(Collections.singletonList(tempDir.toRealPath().toFile()));
+        assertTrue(scanner.getFileTimestamps().isEmpty());
+
+        scanner.setFileFilter(new SourceFileFilter(0, 0, true));
+        scanner.scan(Collections.singletonList(tempDir.toRealPath().toFile()));
+        assertEquals(
+                Collections.singletonMap(app.toPath(), Files.getLastModifiedTime(app.toPath())),
+                scanner.getFileTimestamps());
+    }
+
+    @Test
+    public void testInterruptCancelsScan() throws IOException {
+        createFile("a/App.java");
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(
+                    InterruptedIOException.class,
+                    () -> scan(Collections.singletonList("**/*.java"), Collections.<String>emptyList()));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugins.pmd.exec.BenchmarkReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeBudgetTest {
+    @TempDir
+    Path tempDir;
+
+    private BenchmarkReport createTimings() throws IOException {
+        File csv = tempDir.resolve("pmd-benchmark.csv").toFile();
+        Files.write(
+                csv.toPath(),
+                Arrays.asList(
+                        "type,module,name,totalNanos,selfNanos,count",
+                        "rule,,SlowRule,9000000000,8000000000,10",
+                        "rule,,FastRule,1000000000,500000000,10",
+                        "file,,/src/Slow.java,7000000000,7000000000,1",
+                        "file,,/src/Fast.java,100000000,100000000,1"),
+                StandardCharsets.UTF_8);
+        return BenchmarkReport.readCsv(csv);
+    }
+
+    @Test
+    public void testWithinBudget() throws IOException {
+        TimeBudget budget = new TimeBudget(60, 10);
+        assertTrue(budget.isEnabled());
+        assertNull(budget.check("PMD", TimeUnit.SECONDS.toNanos(30), createTimings()));
+        assertFalse(new TimeBudget(0, 0).isEnabled());
+    }
+
+    @Test
+    public void testAnalysisTimeExceeded() throws IOException {
+        String message = new TimeBudget(20, 0).check("PMD", TimeUnit.SECONDS.toNanos(30), createTimings());
+
+        assertTrue(message.contains("PMD took 30.0 s, the budget is 20.0 s (maxAnalysisTime)"));
+        // the slowest rule is listed first
+        assertTrue(message.indexOf("SlowRule (8.0 s)") < message.indexOf("FastRule (0.5 s)"));
+        assertTrue(message.contains("/src/Slow.java (7.0 s)"));
+    }
+
+    @Test
+    public void testTimePerFileExceeded() throws IOException {
+        String message = new TimeBudget(0, 5).check("PMD", TimeUnit.SECONDS.toNanos(30), createTimings());
+
+        assertTrue(message.contains("1 file took longer than 5.0 s (maxTimePerFile)"));
+        assertFalse(message.contains("maxAnalysisTime"));
+    }
+}
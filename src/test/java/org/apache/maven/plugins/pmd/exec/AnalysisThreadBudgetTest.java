@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnalysisThreadBudgetTest {
+    @Test
+    public void testThreadsAreShared() throws InterruptedException {
+        AnalysisThreadBudget budget = new AnalysisThreadBudget(4);
+
+        AnalysisThreadBudget.Lease first = budget.acquire(3, 1);
+        assertEquals(3, first.getThreads());
+        try (AnalysisThreadBudget.Lease second = budget.acquire(3, 1)) {
+            assertEquals(1, second.getThreads());
+        }
+        first.close();
+        // closing twice must not release more threads than taken
+        first.close();
+
+        try (AnalysisThreadBudget.Lease all = budget.acquire(10, 1)) {
+            assertEquals(4, all.getThreads());
+        }
+    }
+
+    @Test
+    public void testWaitsForFreeThread() throws InterruptedException {
+        AnalysisThreadBudget budget = new AnalysisThreadBudget(1);
+        AnalysisThreadBudget.Lease first = budget.acquire(1, 1);
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = new Thread(() -> {
+            try (AnalysisThreadBudget.Lease second = budget.acquire(1, 1)) {
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        first.close();
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        waiting.join();
+    }
+
+    @Test
+    public void testConcurrentExecutionsGetFairShares() throws Exception {
+        AnalysisThreadBudget budget = new AnalysisThreadBudget(4);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch acquired = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(1);
+        Callable<Integer> execution = () -> {
+            start.await();
+            try (AnalysisThreadBudget.Lease lease = budget.acquire(4, 2)) {
+                acquired.countDown();
+                done.await();
+                return lease.getThreads();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(execution);
+            Future<Integer> second = executor.submit(execution);
+            start.countDown();
+            // neither execution waits for the other one
+            assertTrue(acquired.await(10, TimeUnit.SECONDS));
+            done.countDown();
+            assertEquals(2, first.get().intValue());
+            assertEquals(2, second.get().intValue());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, budget.getActiveExecutions());
+    }
+
+    @Test
+    public void testWaitingExecutionsGetFairShares() throws Exception {
+        AnalysisThreadBudget budget = new AnalysisThreadBudget(4);
+        AnalysisThreadBudget.Lease first = budget.acquire(4, 1);
+        assertEquals(4, first.getThreads());
+
+        CountDownLatch acquired = new CountDownLatch(2);
+        Callable<Integer> execution = () -> {
+            try (AnalysisThreadBudget.Lease lease = budget.acquire(4, 1)) {
+                acquired.countDown();
+                acquired.await();
+                return lease.getThreads();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> second = executor.submit(execution);
+            Future<Integer> third = executor.submit(execution);
+            while (budget.getActiveExecutions() < 3) {
+                Thread.sleep(10);
+            }
+            first.close();
+            // both waiting executions are counted, so the first of them doesn't take all threads
+            assertEquals(2, second.get(10, TimeUnit.SECONDS).intValue());
+            assertEquals(2, third.get(10, TimeUnit.SECONDS).intValue());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
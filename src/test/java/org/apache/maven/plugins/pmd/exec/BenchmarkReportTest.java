@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BenchmarkReportTest {
+    @TempDir
+    Path tempDir;
+
+    private BenchmarkReport writeAndRead(String name, String content) throws IOException {
+        File csv = Files.write(
+                        tempDir.resolve(name + ".csv"),
+                        ("type,module,name,totalNanos,selfNanos,count\n" + content).getBytes(StandardCharsets.UTF_8))
+                .toFile();
+        return BenchmarkReport.readCsv(csv);
+    }
+
+    @Test
+    public void testAggregate() throws IOException {
+        Map<String, BenchmarkReport> reports = new LinkedHashMap<>();
+        reports.put(
+                "module-a",
+                writeAndRead(
+                        "a",
+                        "phase,\"\",\"PARSER\",100,100,2\n"
+                                + "rule,\"\",\"UnusedPrivateField\",30,30,2\n"
+                                + "rule,\"\",\"GodClass\",10,10,2\n"
+                                + "file,\"\",\"/a/A.java\",50,50,1\n"));
+        reports.put(
+                "module-b",
+                writeAndRead(
+                        "b",
+                        "phase,\"\",\"PARSER\",200,200,1\n"
+                                + "rule,\"\",\"GodClass\",40,40,1\n"
+                                + "file,\"\",\"/b/B, \"\"quoted\"\".java\",80,80,3\n"
+                                + "file,\"\",\"/b/C.java\",5,5,0\n"));
+
+        BenchmarkReport aggregated = BenchmarkReport.aggregate(reports, 2);
+        List<BenchmarkReport.Entry> entries = aggregated.getEntries();
+        assertEquals(5, entries.size());
+        assertEntry(entries.get(0), BenchmarkReport.PHASE, "", "PARSER", 300, 3);
+        assertEntry(entries.get(1), BenchmarkReport.RULE, "", "GodClass", 50, 3);
+        assertEntry(entries.get(2), BenchmarkReport.RULE, "", "UnusedPrivateField", 30, 2);
+        assertEntry(entries.get(3), BenchmarkReport.FILE, "module-b", "/b/B, \"quoted\".java", 80, 3);
+        assertEntry(entries.get(4), BenchmarkReport.FILE, "module-a", "/a/A.java", 50, 1);
+
+        // the CSV can be read back
+        File csv = tempDir.resolve("aggregated.csv").toFile();
+        try (Writer writer = Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8)) {
+            aggregated.writeCsv(writer);
+        }
+        List<BenchmarkReport.Entry> read = BenchmarkReport.readCsv(csv).getEntries();
+        assertEquals(5, read.size());
+        assertEntry(read.get(3), BenchmarkReport.FILE, "module-b", "/b/B, \"quoted\".java", 80, 3);
+    }
+
+    @Test
+    public void testWriteJson() throws IOException {
+        BenchmarkReport report = writeAndRead(
+                "report", "rule,\"\",\"GodClass\",40,30,1\n" + "file,\"\",\"C:\\src\\B.java\",80,80,3\n");
+        StringWriter json = new StringWriter();
+        report.writeJson(json);
+
+        String expected = "{\n"
+                + "  \"phases\": [],\n"
+                + "  \"rules\": [\n"
+                + "    {\"name\": \"GodClass\", \"totalNanos\": 40, \"selfNanos\": 30, \"calls\": 1}\n"
+                + "  ],\n"
+                + "  \"files\": [\n"
+                + "    {\"name\": \"C:\\\\src\\\\B.java\", \"totalNanos\": 80, \"violations\": 3}\n"
+                + "  ]\n"
+                + "}\n";
+        assertEquals(expected, json.toString());
+    }
+
+    @Test
+    public void testGetReportFile() {
+        File text = new File("target", "pmd-benchmark.txt");
+        assertEquals(new File("target", "pmd-benchmark.json"), BenchmarkReport.getReportFile(text, ".json"));
+        File withoutExtension = new File("target", "benchmark");
+        assertEquals(new File("target", "benchmark.csv"), BenchmarkReport.getReportFile(withoutExtension, ".csv"));
+    }
+
+    @Test
+    public void testToEntry() {
+        BenchmarkReport.Entry entry = BenchmarkReport.toEntry(BenchmarkReport.RULE, "GodClass", new Measurement());
+        assertEntry(entry, "rule", "", "GodClass", 30, 2);
+        assertEquals(20, entry.getSelfNanos());
+    }
+
+    @Test
+    public void testToEntryWithoutMeasurementFields() {
+        assertNull(BenchmarkReport.toEntry(BenchmarkReport.PHASE, "PARSER", new Object()));
+    }
+
+    /**
+     * Has the fields of the measurements of PMD.
+     */
+    private static class Measurement {
+        private final long totalTimeNanos = 30;
+
+        private final long selfTimeNanos = 20;
+
+        private final int callCount = 2;
+    }
+
+    private static void assertEntry(
+            BenchmarkReport.Entry entry, String type, String module, String name, long totalNanos, long count) {
+        assertEquals(type, entry.getType());
+        assertEquals(module, entry.getModule());
+        assertEquals(name, entry.getName());
+        assertEquals(totalNanos, entry.getTotalNanos());
+        assertEquals(count, entry.getCount());
+    }
+}
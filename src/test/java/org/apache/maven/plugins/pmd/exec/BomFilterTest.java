@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BomFilterTest {
+    private static final char BOM = '\uFEFF';
+
+    @Test
+    public void testSkipsConsecutiveBoms() throws IOException {
+        String input = BOM + "<pmd>" + BOM + BOM + "<file/>" + BOM + "</pmd>" + BOM;
+        assertEquals("<pmd><file/></pmd>", readAll(new BomFilter("UTF-16", new StringReader(input)), 4));
+        assertEquals("<pmd><file/></pmd>", readSingleChars(new BomFilter("UTF-16", new StringReader(input))));
+    }
+
+    @Test
+    public void testKeepsBomsInUtf8() throws IOException {
+        String input = "<pmd>" + BOM + "</pmd>";
+        assertEquals(input, readAll(new BomFilter("UTF-8", new StringReader(input)), 16));
+    }
+
+    @Test
+    public void testLargeReportWithManyBoms() throws IOException {
+        // one BOM per element, a buffer full of BOMs must not end the stream
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            String element = "<violation line=\"" + i + "\"/>";
+            input.append(BOM).append(element);
+            expected.append(element);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            input.append(BOM);
+        }
+        input.append("</pmd>");
+        expected.append("</pmd>");
+
+        assertEquals(
+                expected.toString(),
+                readAll(new BomFilter("ISO-8859-1", new StringReader(input.toString())), 8192));
+    }
+
+    private static String readAll(Reader reader, int bufferSize) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        int count;
+        while ((count = reader.read(buffer, 1, bufferSize - 1)) != -1) {
+            result.append(buffer, 1, count);
+        }
+        return result.toString();
+    }
+
+    private static String readSingleChars(Reader reader) throws IOException {
+        StringBuilder result = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            result.append((char) c);
+        }
+        return result.toString();
+    }
+}
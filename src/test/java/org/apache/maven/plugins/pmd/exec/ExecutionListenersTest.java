@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExecutionListenersTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Registered only in the class loader created by {@link #createListenerClassLoader()}.
+     */
+    public static class RecordingListener implements ExecutionListener {
+        static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void fileDiscovered(File file) {
+            if (file.getName().equals("Failing.java")) {
+                throw new IllegalStateException("failing listener");
+            }
+            EVENTS.add("discovered " + file.getName());
+        }
+
+        @Override
+        public void cacheMiss(String cache, String key) {
+            EVENTS.add("miss " + cache + " " + key);
+        }
+
+        @Override
+        public void reportWritten(File report) {
+            EVENTS.add("written " + report.getName());
+        }
+    }
+
+    /**
+     * Loads the listener SPI, {@link ExecutionListeners} and the {@link RecordingListener} again, but without the
+     * test class path as parent, so that the listener is registered only for this class loader and every test
+     * starts with fresh static state.
+     */
+    private URLClassLoader createListenerClassLoader() throws IOException {
+        Path services = tempDir.resolve("META-INF/services/" + ExecutionListener.class.getName());
+        Files.createDirectories(services.getParent());
+        Files.write(services, RecordingListener.class.getName().getBytes(StandardCharsets.UTF_8));
+        URL[] urls = {
+            tempDir.toUri().toURL(),
+            ExecutionListeners.class.getProtectionDomain().getCodeSource().getLocation(),
+            RecordingListener.class.getProtectionDomain().getCodeSource().getLocation(),
+            LoggerFactory.class.getProtectionDomain().getCodeSource().getLocation()
+        };
+        return new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+    }
+
+    private static void call(ClassLoader classLoader, String method, Class<?>[] types, Object... args)
+            throws ReflectiveOperationException {
+        classLoader
+                .loadClass(ExecutionListeners.class.getName())
+                .getMethod(method, types)
+                .invoke(null, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> getEvents(ClassLoader classLoader) throws ReflectiveOperationException {
+        Field events = classLoader.loadClass(RecordingListener.class.getName()).getDeclaredField("EVENTS");
+        // the class is in another runtime package
+        events.setAccessible(true);
+        return (List<String>) events.get(null);
+    }
+
+    @Test
+    public void testNoListenersByDefault() {
+        assertFalse(ExecutionListeners.isEnabled());
+        // without listeners, the callbacks do nothing
+        ExecutionListeners.fileDiscovered(new File("Foo.java"));
+        ExecutionListeners.reportWritten(new File("pmd.xml"));
+    }
+
+    @Test
+    public void testListenersAreDiscovered() throws Exception {
+        try (URLClassLoader classLoader = createListenerClassLoader()) {
+            Class<?> listeners = classLoader.loadClass(ExecutionListeners.class.getName());
+            assertTrue((Boolean) listeners.getMethod("isEnabled").invoke(null));
+
+            call(classLoader, "fileDiscovered", new Class<?>[] {File.class}, new File("Foo.java"));
+            call(
+                    classLoader,
+                    "cacheAccessed",
+                    new Class<?>[] {String.class, String.class, boolean.class},
+                    ExecutionListener.FILE_SET_CACHE,
+                    "key",
+                    false);
+            call(classLoader, "reportWritten", new Class<?>[] {File.class}, new File("pmd.xml"));
+
+            List<String> events = getEvents(classLoader);
+            assertEquals(3, events.size());
+            assertTrue(events.contains("discovered Foo.java"));
+            assertTrue(events.contains("miss fileSet key"));
+            assertTrue(events.contains("written pmd.xml"));
+        }
+    }
+
+    @Test
+    public void testFailingListenerIsIgnored() throws Exception {
+        try (URLClassLoader classLoader = createListenerClassLoader()) {
+            call(classLoader, "fileDiscovered", new Class<?>[] {File.class}, new File("Failing.java"));
+            // other callbacks still work
+            call(classLoader, "fileDiscovered", new Class<?>[] {File.class}, new File("Bar.java"));
+
+            List<String> events = getEvents(classLoader);
+            assertEquals(1, events.size());
+            assertTrue(events.contains("discovered Bar.java"));
+        }
+    }
+}
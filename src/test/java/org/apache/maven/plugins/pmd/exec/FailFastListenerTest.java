@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.nio.file.Path;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FailFastListenerTest {
+    @TempDir
+    Path tempDir;
+
+    private TextFile createTextFile(String name) {
+        return TextFile.forCharSeq(
+                "class " + name + " {}",
+                FileId.fromPath(tempDir.resolve(name + ".java")),
+                LanguageRegistry.PMD.getLanguageById("java").getDefaultVersion());
+    }
+
+    private static RuleViolation createViolation(TextFile file, String ruleName, RulePriority priority) {
+        Rule rule = Mockito.mock(Rule.class);
+        Mockito.when(rule.getName()).thenReturn(ruleName);
+        Mockito.when(rule.getPriority()).thenReturn(priority);
+        RuleViolation violation = Mockito.mock(RuleViolation.class);
+        Mockito.when(violation.getRule()).thenReturn(rule);
+        Mockito.when(violation.getFileId()).thenReturn(file.getFileId());
+        Mockito.when(violation.getDescription()).thenReturn(ruleName + " in " + file.getFileId());
+        return violation;
+    }
+
+    @Test
+    public void testTriggersOnceMoreFailuresThanAllowed() throws Exception {
+        // failures are violations up to priority 2, which aren't excluded
+        FailFastListener listener =
+                new FailFastListener(2, 1, violation -> "Excluded".equals(violation.getRule().getName()));
+        TextFile first = createTextFile("First");
+        TextFile second = createTextFile("Second");
+
+        FileAnalysisListener firstFile = listener.startFileAnalysis(first);
+        firstFile.onRuleViolation(createViolation(first, "Failure", RulePriority.HIGH));
+        firstFile.onRuleViolation(createViolation(first, "Warning", RulePriority.LOW));
+        firstFile.onRuleViolation(createViolation(first, "Excluded", RulePriority.HIGH));
+        firstFile.close();
+        assertFalse(listener.isTriggered());
+
+        FileAnalysisListener secondFile = listener.startFileAnalysis(second);
+        secondFile.onRuleViolation(createViolation(second, "Failure", RulePriority.MEDIUM_HIGH));
+        assertTrue(listener.isTriggered());
+        assertEquals(2, listener.getFailures());
+        secondFile.close();
+
+        // files started afterwards are not counted anymore
+        TextFile third = createTextFile("Third");
+        FileAnalysisListener thirdFile = listener.startFileAnalysis(third);
+        thirdFile.onRuleViolation(createViolation(third, "Failure", RulePriority.HIGH));
+        thirdFile.close();
+        assertEquals(2, listener.getFailures());
+    }
+
+    @Test
+    public void testNextAnalysisContinuesCounting() throws Exception {
+        FailFastListener listener = new FailFastListener(5, 1, violation -> false);
+        TextFile file = createTextFile("First");
+        FileAnalysisListener fileListener = listener.startFileAnalysis(file);
+        fileListener.onRuleViolation(createViolation(file, "Failure", RulePriority.LOW));
+        fileListener.close();
+
+        FailFastListener next = listener.forNextAnalysis();
+        TextFile other = createTextFile("Second");
+        FileAnalysisListener otherListener = next.startFileAnalysis(other);
+        otherListener.onRuleViolation(createViolation(other, "Failure", RulePriority.LOW));
+        otherListener.close();
+
+        assertTrue(next.isTriggered());
+        assertEquals(2, next.getFailures());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileTimeoutWatchdogTest {
+    @TempDir
+    Path tempDir;
+
+    private TextFile createTextFile(String name) {
+        return TextFile.forCharSeq(
+                "class " + name + " {}",
+                FileId.fromPath(tempDir.resolve(name + ".java")),
+                LanguageRegistry.PMD.getLanguageById("java").getDefaultVersion());
+    }
+
+    private static RuleViolation createViolation(TextFile file) {
+        Rule rule = Mockito.mock(Rule.class);
+        Mockito.when(rule.getName()).thenReturn("Rule");
+        Mockito.when(rule.getPriority()).thenReturn(RulePriority.HIGH);
+        RuleViolation violation = Mockito.mock(RuleViolation.class);
+        Mockito.when(violation.getRule()).thenReturn(rule);
+        Mockito.when(violation.getFileId()).thenReturn(file.getFileId());
+        Mockito.when(violation.getDescription()).thenReturn("Rule in " + file.getFileId());
+        return violation;
+    }
+
+    @Test
+    public void testAbandonsSlowFile() throws Exception {
+        FileTimeoutWatchdog watchdog = new FileTimeoutWatchdog(50, TimeUnit.MILLISECONDS);
+        FileTimeoutWatchdog.Round round = watchdog.startRound();
+        TextFile fast = createTextFile("Fast");
+        TextFile slow = createTextFile("Slow");
+
+        round.startFileAnalysis(fast).close();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            FileAnalysisListener listener = round.startFileAnalysis(slow);
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            try {
+                listener.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        started.await();
+        assertTrue(watchdog.hasActiveFiles());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (interrupted.getCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            watchdog.checkTimeouts();
+        }
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        thread.join();
+        assertFalse(watchdog.hasActiveFiles());
+
+        File unstarted = tempDir.resolve("Other.java").toFile();
+        assertEquals(
+                Collections.singletonList(unstarted),
+                watchdog.getUnstartedFiles(Arrays.asList(
+                        tempDir.resolve("Fast.java").toFile(), tempDir.resolve("Slow.java").toFile(), unstarted)));
+
+        Report report = watchdog.getReport();
+        assertEquals(1, report.getProcessingErrors().size());
+        assertEquals(slow.getFileId(), report.getProcessingErrors().get(0).getFileId());
+    }
+
+    @Test
+    public void testStalledWhenAllThreadsAreStuck() throws Exception {
+        FileTimeoutWatchdog watchdog = new FileTimeoutWatchdog(1, TimeUnit.MILLISECONDS);
+        FileTimeoutWatchdog.Round round = watchdog.startRound();
+
+        // the listener is never closed, as if the rule didn't react to the interrupt
+        round.startFileAnalysis(createTextFile("Stuck"));
+        // the interrupt is meant for the analysis thread
+        Thread.sleep(5);
+        watchdog.checkTimeouts();
+        Thread.interrupted();
+
+        assertFalse(round.isStalled(2));
+        assertTrue(round.isStalled(1));
+
+        // a stuck analysis must not hand the file to a later round
+        FileAnalysisListener duplicate = watchdog.startRound().startFileAnalysis(createTextFile("Stuck"));
+        assertEquals(1, watchdog.getReport().getProcessingErrors().size());
+        duplicate.close();
+    }
+
+    @Test
+    public void testResultsOfAbandonedFileAreDropped() throws Exception {
+        FileTimeoutWatchdog watchdog = new FileTimeoutWatchdog(1, TimeUnit.MILLISECONDS);
+        FileTimeoutWatchdog.Round round = watchdog.startRound();
+        TextFile slow = createTextFile("Slow");
+
+        FileAnalysisListener slowFile = round.startFileAnalysis(slow);
+        // reported before the file is abandoned
+        slowFile.onRuleViolation(createViolation(slow));
+        Thread.sleep(5);
+        watchdog.checkTimeouts();
+        Thread.interrupted();
+        slowFile.onRuleViolation(createViolation(slow));
+        slowFile.close();
+
+        Report report = watchdog.getReport();
+        assertTrue(report.getViolations().isEmpty());
+        assertEquals(1, report.getProcessingErrors().size());
+        assertEquals(slow.getFileId(), report.getProcessingErrors().get(0).getFileId());
+    }
+
+    @Test
+    public void testResultsOfFinishedFileAreCollected() throws Exception {
+        FileTimeoutWatchdog watchdog = new FileTimeoutWatchdog(1, TimeUnit.MINUTES);
+        TextFile file = createTextFile("Fast");
+
+        FileAnalysisListener listener = watchdog.startRound().startFileAnalysis(file);
+        listener.onRuleViolation(createViolation(file));
+        listener.close();
+
+        Report report = watchdog.getReport();
+        assertEquals(1, report.getViolations().size());
+        assertTrue(report.getProcessingErrors().isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileTimingsTest {
+    @TempDir
+    Path tempDir;
+
+    private File createFile(String name, int size) throws IOException {
+        return Files.write(tempDir.resolve(name), new byte[size]).toFile();
+    }
+
+    @Test
+    public void testEstimateBySize() throws IOException {
+        File small = createFile("Small.java", 10);
+        File large = createFile("Large.java", 1000);
+        File medium = createFile("Medium.java", 100);
+
+        Map<File, Long> costs = new FileTimings().estimateCosts(Arrays.asList(small, large, medium));
+        assertEquals(Arrays.asList(large, medium, small), new ArrayList<>(costs.keySet()));
+    }
+
+    @Test
+    public void testPreviousTimingsAreStoredAndPreferred() throws IOException {
+        File small = createFile("Small.java", 10);
+        File large = createFile("Large.java", 1000);
+        File unknown = createFile("Unknown.java", 500);
+
+        Map<String, Long> measured = new HashMap<>();
+        // the small file has been slow, the large one fast: 100 ns per byte on average
+        measured.put(small.getAbsolutePath(), 100_000L);
+        measured.put(large.getAbsolutePath(), 1_000L);
+        FileTimings timings = new FileTimings();
+        timings.update(measured, false);
+        File timingsFile = new File(tempDir.toFile(), "pmd/pmd-file-timings.txt");
+        timings.save(timingsFile);
+
+        Map<File, Long> costs = FileTimings.load(timingsFile).estimateCosts(Arrays.asList(small, large, unknown));
+        assertEquals(Arrays.asList(small, unknown, large), new ArrayList<>(costs.keySet()));
+        assertEquals(100_000L, costs.get(small).longValue());
+        assertEquals(50_000L, costs.get(unknown).longValue());
+    }
+
+    @Test
+    public void testKeepMaximum() {
+        File file = new File(tempDir.toFile(), "A.java");
+        FileTimings timings = new FileTimings();
+        timings.update(Collections.singletonMap(file.getAbsolutePath(), 1000L), false);
+        timings.update(Collections.singletonMap(file.getAbsolutePath(), 10L), true);
+        assertEquals(1000L, timings.estimateCosts(Collections.singletonList(file)).get(file).longValue());
+        timings.update(Collections.singletonMap(file.getAbsolutePath(), 100L), false);
+        assertEquals(100L, timings.estimateCosts(Collections.singletonList(file)).get(file).longValue());
+    }
+
+    @Test
+    public void testSelectMostExpensive() {
+        Map<File, Long> costs = new LinkedHashMap<>();
+        costs.put(new File("Huge.java"), 1000L);
+        for (int i = 0; i < 20; i++) {
+            costs.put(new File("File" + i + ".java"), 10L);
+        }
+
+        List<File> selected = FileTimings.selectMostExpensive(costs, 4);
+        assertEquals(Collections.singletonList(new File("Huge.java")), selected);
+        assertTrue(FileTimings.selectMostExpensive(costs, 1).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.nio.file.Path;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PartialReportBuilderTest {
+    @TempDir
+    Path tempDir;
+
+    private TextFile createTextFile(String name) {
+        return TextFile.forCharSeq(
+                "class " + name + " {}",
+                FileId.fromPath(tempDir.resolve(name + ".java")),
+                LanguageRegistry.PMD.getLanguageById("java").getDefaultVersion());
+    }
+
+    private static RuleViolation createViolation(TextFile file) {
+        Rule rule = Mockito.mock(Rule.class);
+        Mockito.when(rule.getName()).thenReturn("Rule");
+        Mockito.when(rule.getPriority()).thenReturn(RulePriority.HIGH);
+        RuleViolation violation = Mockito.mock(RuleViolation.class);
+        Mockito.when(violation.getRule()).thenReturn(rule);
+        Mockito.when(violation.getFileId()).thenReturn(file.getFileId());
+        Mockito.when(violation.getDescription()).thenReturn("Rule in " + file.getFileId());
+        return violation;
+    }
+
+    @Test
+    public void testResultsAfterTheReportHasBeenTakenAreDropped() throws Exception {
+        PartialReportBuilder builder = new PartialReportBuilder();
+        TextFile first = createTextFile("First");
+        TextFile second = createTextFile("Second");
+
+        FileAnalysisListener firstFile = builder.startFileAnalysis(first);
+        firstFile.onRuleViolation(createViolation(first));
+        firstFile.close();
+
+        // still running, when the analysis is given up
+        FileAnalysisListener secondFile = builder.startFileAnalysis(second);
+        secondFile.onRuleViolation(createViolation(second));
+
+        assertEquals(1, builder.getReport().getViolations().size());
+        secondFile.close();
+        builder.close();
+        assertSame(builder.getReport(), builder.getReport());
+        assertEquals(1, builder.getReport().getViolations().size());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PmdExecutorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCreateBatches() throws IOException {
+        // a budget of 1 MB allows 16 KiB of source code per batch
+        List<File> files = new ArrayList<>();
+        for (int size : new int[] {8, 8, 8, 20, 1, 1}) {
+            files.add(Files.write(tempDir.resolve("File" + files.size() + ".java"), new byte[size * 1024])
+                    .toFile());
+        }
+
+        List<List<File>> batches = PmdExecutor.createBatches(files, 1);
+
+        assertEquals(
+                Arrays.asList(files.subList(0, 2), files.subList(2, 3), files.subList(3, 4), files.subList(4, 6)),
+                batches);
+    }
+
+    @Test
+    public void testCreateShardsKeepsPackagesTogether() throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String name : new String[] {"a/A1.java", "a/A2.java", "b/B1.java", "c/C1.java", "c/C2.java"}) {
+            Path file = tempDir.resolve(name);
+            Files.createDirectories(file.getParent());
+            files.add(Files.write(file, new byte[1024]).toFile());
+        }
+
+        List<List<File>> shards = PmdExecutor.createShards(files, 2);
+        assertEquals(Arrays.asList(files.subList(0, 3), files.subList(3, 5)), shards);
+
+        // not more shards than packages
+        assertEquals(3, PmdExecutor.createShards(files, 5).size());
+    }
+
+    @Test
+    public void testMergeBenchmarkReports() throws IOException {
+        List<File> shardReports = new ArrayList<>();
+        String[] shardContents = {
+            "phase,\"\",\"PARSER\",100,100,2\n" + "rule,\"\",\"GodClass\",10,10,2\n"
+                    + "file,\"\",\"/a/A.java\",50,50,1\n",
+            "phase,\"\",\"PARSER\",200,200,1\n" + "rule,\"\",\"GodClass\",40,40,1\n"
+                    + "file,\"\",\"/b/B.java\",80,80,3\n" + "file,\"\",\"/b/C.java\",5,5,0\n"
+        };
+        for (String content : shardContents) {
+            Path shardDirectory = Files.createDirectories(tempDir.resolve("pmd/shard-" + shardReports.size()));
+            Files.write(
+                    shardDirectory.resolve("pmd-benchmark.csv"),
+                    ("type,module,name,totalNanos,selfNanos,count\n" + content).getBytes(StandardCharsets.UTF_8));
+            shardReports.add(shardDirectory.resolve("pmd-benchmark.txt").toFile());
+        }
+
+        File textReport = tempDir.resolve("pmd-benchmark.txt").toFile();
+        PmdExecutor.mergeBenchmarkReports(shardReports, textReport);
+
+        assertTrue(new File(tempDir.toFile(), "pmd-benchmark.json").isFile());
+        List<BenchmarkReport.Entry> entries = BenchmarkReport.readCsv(new File(tempDir.toFile(), "pmd-benchmark.csv"))
+                .getEntries();
+        assertEquals(5, entries.size());
+        assertEquals("PARSER", entries.get(0).getName());
+        assertEquals(300, entries.get(0).getTotalNanos());
+        assertEquals("GodClass", entries.get(1).getName());
+        assertEquals(50, entries.get(1).getTotalNanos());
+        // all files are kept and stay files of the module
+        assertEquals("/b/B.java", entries.get(2).getName());
+        assertEquals("/a/A.java", entries.get(3).getName());
+        assertEquals("/b/C.java", entries.get(4).getName());
+        assertEquals("", entries.get(4).getModule());
+    }
+
+    @Test
+    public void testLargestFilesAreAnalyzedSeparately() throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // the first file is the most expensive by far
+            int fields = i == 0 ? 200 : 1;
+            StringBuilder source = new StringBuilder("package a;\nclass File" + i + " {\n");
+            for (int field = 0; field < fields; field++) {
+                source.append("    private int unused").append(field).append(";\n");
+            }
+            source.append("}\n");
+            Path file = tempDir.resolve("src/a/File" + i + ".java");
+            Files.createDirectories(file.getParent());
+            files.add(Files.write(file, source.toString().getBytes(StandardCharsets.UTF_8)).toFile());
+        }
+        File targetDirectory = tempDir.resolve("target").toFile();
+
+        PmdRequest request = new PmdRequest();
+        request.setLanguageAndVersion("java", null);
+        request.setMinimumPriority(5);
+        request.setRulesets(Collections.singletonList("category/java/bestpractices.xml/UnusedPrivateField"));
+        request.setSourceEncoding("UTF-8");
+        request.setFiles(files);
+        request.setTargetDirectory(targetDirectory.getAbsolutePath());
+        request.setOutputEncoding("UTF-8");
+        request.setFormat("xml");
+        request.setThreads(4);
+        request.setLargestFilesFirst(true);
+        // the concurrent analyses share these listeners
+        request.setFailFast(5, 1000);
+        File progressEvents = new File(targetDirectory, "progress.ndjson");
+        request.setProgress(0, progressEvents.getAbsolutePath());
+
+        PmdResult result = new PmdExecutor(request).run();
+
+        assertEquals(207, result.getViolations().size());
+        String report =
+                new String(Files.readAllBytes(new File(targetDirectory, "pmd.xml").toPath()), StandardCharsets.UTF_8);
+        assertFalse(report.contains(PmdExecutor.TRUNCATED_MARKER));
+        assertTrue(new File(targetDirectory, "pmd/pmd-file-timings.txt").isFile());
+        String events = new String(Files.readAllBytes(progressEvents.toPath()), StandardCharsets.UTF_8);
+        for (File file : files) {
+            assertTrue(events.contains(file.getName()), events);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugins.pmd.model.ProcessingError;
+import org.apache.maven.plugins.pmd.model.SuppressedViolation;
+import org.apache.maven.plugins.pmd.model.Violation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PmdResultReaderTest {
+    private static final String REPORT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\" version=\"7.0.0\">\n"
+            + "<file name=\"/src/a/A.java\">\n"
+            + "<violation beginline=\"3\" endline=\"4\" begincolumn=\"1\" endcolumn=\"2\" rule=\"UnusedPrivateField\""
+            + " ruleset=\"Best Practices\" package=\"a\" class=\"A\" priority=\"3\""
+            + " externalInfoUrl=\"https://pmd.github.io/\">\n"
+            + "Avoid unused private fields such as 'x'.\n"
+            + "</violation>\n"
+            + "</file>\n"
+            + "<file name=\"/src/B.java\">\n"
+            + "<violation beginline=\"7\" endline=\"7\" rule=\"EmptyCatchBlock\" priority=\"x\">"
+            + "Empty &amp; catch</violation>\n"
+            + "</file>\n"
+            + "<suppressedviolation filename=\"/src/C.java\" suppressiontype=\"nopmd\" msg=\"Unused\""
+            + " usermsg=\"ok\"/>\n"
+            + "<error filename=\"/src/D.java\" msg=\"ParseException\">\n"
+            + "<![CDATA[Stack trace]]>\n"
+            + "</error>\n"
+            + "</pmd>\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadViolations() throws IOException {
+        PmdResultReader reader = new PmdResultReader(writeReport(REPORT), "UTF-8");
+        ViolationStore store = new ViolationStore();
+        reader.readViolations(store);
+        List<Violation> violations = store.asList();
+
+        assertEquals(2, violations.size());
+        Violation first = violations.get(0);
+        assertEquals("/src/a/A.java", first.getFileName());
+        assertEquals(3, first.getBeginline());
+        assertEquals(4, first.getEndline());
+        assertEquals("UnusedPrivateField", first.getRule());
+        assertEquals("a", first.getViolationPackage());
+        assertEquals("A", first.getViolationClass());
+        assertEquals(3, first.getPriority());
+        assertEquals("https://pmd.github.io/", first.getExternalInfoUrl());
+        assertEquals("Avoid unused private fields such as 'x'.", first.getText());
+
+        Violation second = violations.get(1);
+        assertEquals("/src/B.java", second.getFileName());
+        assertNull(second.getViolationPackage());
+        // invalid numbers are read leniently
+        assertEquals(0, second.getPriority());
+        assertEquals("Empty & catch", second.getText());
+
+        assertTrue(reader.hasViolations());
+    }
+
+    @Test
+    public void testReadSuppressedViolationsAndErrors() throws IOException {
+        PmdResultReader reader = new PmdResultReader(writeReport(REPORT), null);
+
+        List<SuppressedViolation> suppressedViolations = new ArrayList<>();
+        reader.readSuppressedViolations(suppressedViolations::add);
+        assertEquals(1, suppressedViolations.size());
+        assertEquals("/src/C.java", suppressedViolations.get(0).getFilename());
+        assertEquals("nopmd", suppressedViolations.get(0).getSuppressionType());
+        assertEquals("Unused", suppressedViolations.get(0).getRuleMessage());
+        assertEquals("ok", suppressedViolations.get(0).getUserMessage());
+
+        List<ProcessingError> errors = new ArrayList<>();
+        reader.readErrors(errors::add);
+        assertEquals(1, errors.size());
+        assertEquals("/src/D.java", errors.get(0).getFilename());
+        assertEquals("ParseException", errors.get(0).getMsg());
+        assertEquals("Stack trace", errors.get(0).getDetail());
+    }
+
+    @Test
+    public void testStringsArePooled() throws IOException {
+        StringBuilder report = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<pmd>\n");
+        for (int i = 0; i < 2; i++) {
+            report.append("<file name=\"/src/A")
+                    .append(i)
+                    .append(".java\">\n")
+                    .append("<violation beginline=\"1\" rule=\"UnusedImports\" priority=\"4\">")
+                    .append("Unused import</violation>\n")
+                    .append("</file>\n");
+        }
+        report.append("</pmd>\n");
+        ViolationStore store = new ViolationStore();
+        new PmdResultReader(writeReport(report.toString()), "UTF-8").readViolations(store);
+        List<Violation> violations = store.asList();
+
+        assertEquals(2, violations.size());
+        assertSame(violations.get(0).getRule(), violations.get(1).getRule());
+        assertSame(violations.get(0).getText(), violations.get(1).getText());
+    }
+
+    @Test
+    public void testNoViolations() throws IOException {
+        File report = writeReport("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<pmd version=\"7.0.0\"></pmd>\n");
+        assertFalse(new PmdResultReader(report, "UTF-8").hasViolations());
+    }
+
+    private File writeReport(String content) throws IOException {
+        return Files.write(tempDir.resolve("pmd.xml"), content.getBytes(StandardCharsets.UTF_8))
+                .toFile();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ProcessingErrorDetailsTest {
+    @Test
+    public void testSameSignatureSharesDetail() {
+        ProcessingErrorDetails details = new ProcessingErrorDetails(1);
+        String first = stackTrace("A.java");
+        String second = stackTrace("B.java");
+
+        assertEquals(ProcessingErrorDetails.getSignature(first), ProcessingErrorDetails.getSignature(second));
+        assertSame(first, details.deduplicate(first));
+        assertSame(first, details.deduplicate(second));
+        assertNull(details.deduplicate(null));
+
+        // a different stack trace exceeds the limit
+        assertNull(details.deduplicate("java.lang.IllegalStateException: broken\n\tat Foo.bar(Foo.java:1)"));
+        assertEquals(1, details.getDroppedDetails());
+    }
+
+    @Test
+    public void testSignature() {
+        assertEquals(
+                "java.lang.LinkageError\nat Rule.apply(Rule.java:10)\nCaused by: java.lang.ClassNotFoundException\n"
+                        + "at Loader.load(Loader.java:3)\n",
+                ProcessingErrorDetails.getSignature(stackTrace("C.java")));
+        assertEquals(
+                "java.util.concurrent.TimeoutException\n",
+                ProcessingErrorDetails.getSignature("java.util.concurrent.TimeoutException: took longer"));
+    }
+
+    private static String stackTrace(String file) {
+        return "java.lang.LinkageError: in " + file + "\n"
+                + "\tat Rule.apply(Rule.java:10)\n"
+                + "Caused by: java.lang.ClassNotFoundException: com.example.Missing (" + file + ")\n"
+                + "\tat Loader.load(Loader.java:3)\n"
+                + "\t... 5 more\n";
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProgressReporterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFormatProgress() throws IOException {
+        ProgressReporter reporter = new ProgressReporter("PMD", 4, 0, null);
+        reporter.fileCompleted("A.java", 1000, 0);
+        reporter.setPhase("analysis");
+
+        String progress = reporter.formatProgress();
+        assertTrue(progress.startsWith("PMD (analysis): 1/4 files (25%), "), progress);
+        assertTrue(progress.contains(" files/s"), progress);
+        assertTrue(progress.endsWith(" MB"), progress);
+        reporter.finish();
+    }
+
+    @Test
+    public void testEvents() throws IOException {
+        File eventsFile = tempDir.resolve("events/progress.ndjson").toFile();
+        ProgressReporter reporter = new ProgressReporter("PMD", 3, 0, eventsFile);
+        reporter.fileCompleted("src/\"A\".java", 1500, 2);
+        reporter.filesCompleted(2);
+        reporter.finish();
+        // events after the end are dropped
+        reporter.fileCompleted("B.java", 1, 0);
+
+        List<String> lines = Files.readAllLines(eventsFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(
+                lines.get(0)
+                        .startsWith("{\"event\":\"fileCompleted\",\"tool\":\"PMD\",\"file\":\"src/\\\"A\\\".java\","
+                                + "\"durationNanos\":1500,\"violations\":2,\"completed\":1,\"total\":3,"),
+                lines.get(0));
+        assertTrue(
+                lines.get(1).startsWith("{\"event\":\"filesCompleted\",\"tool\":\"PMD\",\"files\":2,\"completed\":3,"),
+                lines.get(1));
+    }
+
+    @Test
+    public void testDisabled() {
+        assertNull(ProgressReporter.create("CPD", 10, 0, null));
+    }
+}
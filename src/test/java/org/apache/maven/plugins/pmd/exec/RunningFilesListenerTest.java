@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RunningFilesListenerTest {
+    @TempDir
+    Path tempDir;
+
+    private TextFile createTextFile(String name) {
+        return TextFile.forCharSeq(
+                "class " + name + " {}",
+                FileId.fromPath(tempDir.resolve(name + ".java")),
+                LanguageRegistry.PMD.getLanguageById("java").getDefaultVersion());
+    }
+
+    @Test
+    public void testAwaitIdle() throws Exception {
+        RunningFilesListener listener = new RunningFilesListener();
+        assertEquals(0, listener.awaitIdle(0, TimeUnit.MILLISECONDS));
+
+        FileAnalysisListener first = listener.startFileAnalysis(createTextFile("First"));
+        FileAnalysisListener stuck = listener.startFileAnalysis(createTextFile("Stuck"));
+        assertEquals(2, listener.awaitIdle(10, TimeUnit.MILLISECONDS));
+
+        Thread finisher = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                first.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        finisher.start();
+        assertEquals(1, listener.awaitIdle(200, TimeUnit.MILLISECONDS));
+        finisher.join();
+
+        stuck.close();
+        assertEquals(0, listener.awaitIdle(0, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugins.pmd.model.Violation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ViolationStoreTest {
+    @Test
+    public void testCopiesViolations() {
+        Violation violation = createViolation("A.java", 3, 2, "UnusedImports");
+        violation.setEndline(4);
+        violation.setViolationPackage("a");
+        violation.setExternalInfoUrl("https://pmd.github.io/");
+        violation.setText("Unused import");
+
+        ViolationStore store = new ViolationStore();
+        store.add(violation);
+        store.add(createViolation("A.java", 7, 2, "UnusedImports"));
+
+        Violation copy = store.get(0);
+        assertEquals("A.java", copy.getFileName());
+        assertEquals(3, copy.getBeginline());
+        assertEquals(4, copy.getEndline());
+        assertEquals(2, copy.getPriority());
+        assertEquals("UnusedImports", copy.getRule());
+        assertEquals("a", copy.getViolationPackage());
+        assertNull(copy.getViolationClass());
+        assertEquals("https://pmd.github.io/", copy.getExternalInfoUrl());
+        assertEquals("Unused import", copy.getText());
+        // the strings are shared
+        assertSame(copy.getRule(), store.get(1).getRule());
+
+        store.setFileName(1, "B.java");
+        assertEquals("B.java", store.getFileName(1));
+    }
+
+    @Test
+    public void testGrowsAndCounts() {
+        ViolationStore store = new ViolationStore();
+        for (int i = 0; i < 1000; i++) {
+            store.add(createViolation("File" + (i % 10) + ".java", i, i % 3 + 1, "Rule" + (i % 7)));
+        }
+
+        assertEquals(1000, store.size());
+        assertEquals(999, store.getBeginline(999));
+        assertArrayEquals(new int[] {0, 334, 333, 333, 0, 0}, store.countByPriority());
+        assertEquals(334, store.asList().withPriority(priority -> priority == 1).size());
+    }
+
+    @Test
+    public void testSortedByFileAndLine() {
+        List<Violation> violations = new ArrayList<>();
+        violations.add(createViolation("B.java", 5, 3, "first"));
+        violations.add(createViolation("A.java", 9, 3, "second"));
+        violations.add(createViolation("B.java", 1, 3, "third"));
+        violations.add(createViolation("A.java", 9, 1, "fourth"));
+        violations.add(createViolation("A.java", 2, 3, "fifth"));
+
+        ViolationStore.ViolationList list = ViolationStore.toList(violations);
+        assertEquals(
+                Arrays.asList("fifth", "second", "fourth", "third", "first"),
+                getRules(list.sortedByFileAndLine()));
+        // the order of the selection is sorted, not the store
+        assertEquals(
+                Arrays.asList("second", "third", "first"),
+                getRules(list.getStore().select(new int[] {2, 0, 1}, 3).sortedByFileAndLine()));
+        assertEquals(
+                Arrays.asList("first", "second", "third", "fifth"),
+                getRules(list.withPriority(priority -> priority == 3)));
+        assertSame(list, ViolationStore.toList(list));
+    }
+
+    private static Violation createViolation(String fileName, int line, int priority, String rule) {
+        Violation violation = new Violation();
+        violation.setFileName(fileName);
+        violation.setBeginline(line);
+        violation.setPriority(priority);
+        violation.setRule(rule);
+        return violation;
+    }
+
+    private static List<String> getRules(List<Violation> violations) {
+        List<String> rules = new ArrayList<>();
+        for (Violation violation : violations) {
+            rules.add(violation.getRule());
+        }
+        return rules;
+    }
+}
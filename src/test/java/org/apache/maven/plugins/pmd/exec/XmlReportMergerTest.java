@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.pmd.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class XmlReportMergerTest {
+    @TempDir
+    Path tempDir;
+
+    private File write(String name, String content) throws IOException {
+        return Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8)).toFile();
+    }
+
+    @Test
+    public void testMergePmdReports() throws IOException {
+        File first = write(
+                "first.xml",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\" version=\"7.0.0\">\n"
+                        + "<file name=\"A.java\">\n<violation rule=\"R1\">\nfirst &amp; only\n</violation>\n</file>\n"
+                        + "<error filename=\"B.java\" msg=\"broken\">\ndetail\n</error>\n"
+                        + "</pmd>\n");
+        File second = write(
+                "second.xml",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\" version=\"7.0.0\">\n"
+                        + "<file name=\"C.java\">\n<violation rule=\"R2\">\nüberall\n</violation>\n</file>\n"
+                        + "</pmd>\n");
+        File merged = tempDir.resolve("merged.xml").toFile();
+
+        new XmlReportMerger(XmlReportMerger.PMD_ELEMENTS).merge(Arrays.asList(first, second), merged, "UTF-8");
+
+        String content = new String(Files.readAllBytes(merged.toPath()), StandardCharsets.UTF_8);
+        int fileA = content.indexOf("<file name=\"A.java\">");
+        int fileC = content.indexOf("<file name=\"C.java\">");
+        int error = content.indexOf("<error ");
+        assertTrue(content.contains("<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\""), content);
+        assertTrue(fileA > 0 && fileA < fileC && fileC < error, content);
+        assertTrue(content.contains("first &amp; only"), content);
+        assertTrue(content.contains("überall"), content);
+        assertTrue(content.trim().endsWith("</pmd>"), content);
+    }
+
+    @Test
+    public void testTruncatedMarkerIsKept() throws IOException {
+        String report = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\" version=\"7.0.0\">\n"
+                + "</pmd>\n";
+        File first = write("first.xml", report + PmdExecutor.TRUNCATED_MARKER + "\n");
+        File second = write("second.xml", report);
+        File third = write("third.xml", report + PmdExecutor.TRUNCATED_MARKER + "\n");
+        File merged = tempDir.resolve("merged.xml").toFile();
+
+        new XmlReportMerger(XmlReportMerger.PMD_ELEMENTS)
+                .merge(Arrays.asList(first, second, third), merged, "UTF-8");
+
+        String content = new String(Files.readAllBytes(merged.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.trim().endsWith("</pmd>\n" + PmdExecutor.TRUNCATED_MARKER), content);
+        assertEquals(
+                content.indexOf(PmdExecutor.TRUNCATED_MARKER), content.lastIndexOf(PmdExecutor.TRUNCATED_MARKER));
+    }
+}